@@ -0,0 +1,203 @@
+package actors;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import play.libs.Json;
+import utils.MatchFootprint;
+
+/**
+ * Admission of the game websockets. At most maxMatches matches run at once; the
+ * next connections wait in a queue of at most maxWaiting, and are told their
+ * position while they wait. Beyond that a connection is refused, with a time to
+ * retry after.
+ *
+ * A match is started when there is a free slot and the server can take it: the heap
+ * budget of MatchFootprint has room for one more match, and fewer game actions are
+ * running (blocking a dispatcher thread) than the dispatcher has threads.
+ *
+ * The game state is a single GameState per JVM, so maxMatches defaults to 1.
+ *
+ *   -Dmatch.max=1 -Dmatch.maxWaiting=8 -Dmatch.retryAfterSeconds=30 -Dmatch.heapBudget=0.85
+ *
+ */
+public class Admission {
+
+	public static int maxMatches = Integer.getInteger("match.max", 1);
+	public static int maxWaiting = Integer.getInteger("match.maxWaiting", 8);
+	public static int retryAfterSeconds = Integer.getInteger("match.retryAfterSeconds", 30);
+	// threads of the dispatcher running the game actors
+	public static int dispatcherThreads = Runtime.getRuntime().availableProcessors();
+
+	private static int active = 0;
+	private static final LinkedList<Ticket> waiting = new LinkedList<>();
+	// game actions running now
+	private static final AtomicInteger busy = new AtomicInteger(0);
+
+	/**
+	 * the place of one connection
+	 */
+	public static class Ticket {
+		private volatile boolean admitted = false;
+		private boolean released = false;
+		private ActorRef gate = null;
+		private int position = 0;
+
+		public boolean isAdmitted() {
+			return admitted;
+		}
+
+		/**
+		 * @return the place in the queue, 1 is next; 0 once admitted
+		 */
+		public int getPosition() {
+			synchronized (Admission.class) {
+				return admitted ? 0 : position;
+			}
+		}
+	}
+
+	/**
+	 * sent to the gate when its match can start
+	 */
+	public static final class Admitted {
+	}
+
+	/**
+	 * sent to the gate when its place in the queue changes
+	 */
+	public static final class Position {
+		public final int position;
+
+		Position(int position) {
+			this.position = position;
+		}
+	}
+
+	/**
+	 * read the number of threads of the default dispatcher, which runs the game actors
+	 * @param config: config of the actor system
+	 */
+	public static void configure(Config config) {
+		String path = "akka.actor.default-dispatcher.fork-join-executor";
+		if (!config.hasPath(path)) return;
+		Config executor = config.getConfig(path);
+		int threads = (int) Math.ceil(Runtime.getRuntime().availableProcessors() * executor.getDouble("parallelism-factor"));
+		dispatcherThreads = Math.min(executor.getInt("parallelism-max"), Math.max(executor.getInt("parallelism-min"), threads));
+	}
+
+	/**
+	 * a new connection
+	 * @return its ticket, admitted or waiting; null if the queue is full
+	 */
+	public static synchronized Ticket enter() {
+		Ticket ticket = new Ticket();
+		if (waiting.isEmpty() && canStart()) {
+			ticket.admitted = true;
+			active++;
+			return ticket;
+		}
+		if (waiting.size() >= maxWaiting) return null;
+		waiting.add(ticket);
+		ticket.position = waiting.size();
+		return ticket;
+	}
+
+	/**
+	 * a match which cannot wait in the queue (see MatchEntity)
+	 * @return an admitted ticket, or null if a match cannot start now
+	 */
+	public static synchronized Ticket tryEnter() {
+		if (!waiting.isEmpty() || !canStart()) return null;
+		Ticket ticket = new Ticket();
+		ticket.admitted = true;
+		active++;
+		return ticket;
+	}
+
+	/**
+	 * the gate actor of a ticket is running
+	 */
+	public static synchronized void bind(Ticket ticket, ActorRef gate) {
+		ticket.gate = gate;
+		if (ticket.admitted) gate.tell(new Admitted(), ActorRef.noSender());
+		else gate.tell(new Position(ticket.position), ActorRef.noSender());
+	}
+
+	/**
+	 * the connection is closed
+	 */
+	public static synchronized void release(Ticket ticket) {
+		if (ticket.released) return;
+		ticket.released = true;
+		if (ticket.admitted) active--;
+		else waiting.remove(ticket);
+		promote();
+	}
+
+	/**
+	 * let waiting connections in while there is room, and tell the others their position
+	 */
+	public static synchronized void promote() {
+		while (!waiting.isEmpty() && canStart()) {
+			Ticket ticket = waiting.removeFirst();
+			ticket.admitted = true;
+			active++;
+			if (ticket.gate != null) ticket.gate.tell(new Admitted(), ActorRef.noSender());
+		}
+		int position = 0;
+		for (Ticket ticket : waiting) {
+			position++;
+			if (ticket.position == position) continue;
+			ticket.position = position;
+			if (ticket.gate != null) ticket.gate.tell(new Position(position), ActorRef.noSender());
+		}
+	}
+
+	/**
+	 * a game action starts or ends, on the dispatcher
+	 */
+	public static void actionStarted() {
+		busy.incrementAndGet();
+	}
+
+	public static void actionEnded() {
+		busy.decrementAndGet();
+		if (hasWaiting()) promote();
+	}
+
+	private static synchronized boolean hasWaiting() {
+		return !waiting.isEmpty();
+	}
+
+	private static boolean canStart() {
+		return active < maxMatches && busy.get() < dispatcherThreads && MatchFootprint.admit();
+	}
+
+	/**
+	 * forget every ticket, e.g. between tests
+	 */
+	public static synchronized void reset() {
+		active = 0;
+		waiting.clear();
+		busy.set(0);
+	}
+
+	/**
+	 * the admission gauges, for the metrics endpoint
+	 */
+	public static synchronized ObjectNode toJson() {
+		ObjectNode json = Json.newObject();
+		json.put("active", active);
+		json.put("waiting", waiting.size());
+		json.put("maxMatches", maxMatches);
+		json.put("maxWaiting", maxWaiting);
+		json.put("busyActions", busy.get());
+		json.put("dispatcherThreads", dispatcherThreads);
+		return json;
+	}
+}
@@ -0,0 +1,75 @@
+package actors;
+
+import java.time.Duration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.actor.AbstractActorWithTimers;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import play.libs.Json;
+
+/**
+ * The actor of a game websocket while it waits for admission (see Admission). It
+ * tells the browser its place in the queue, and once admitted starts the GameActor
+ * and passes the browser's events on to it. Closing the websocket frees the ticket.
+ *
+ * {
+ *   messagetype = "queuePosition"
+ *   position = <1 is next>
+ * }
+ *
+ */
+public class AdmissionGate extends AbstractActorWithTimers {
+
+	// how often a waiting gate checks the heap and the dispatcher again
+	private static final Duration recheck = Duration.ofSeconds(2);
+
+	private final ActorRef out;
+	private final Admission.Ticket ticket;
+	private final Props game;
+	private ActorRef gameActor = null;
+
+	public static Props props(ActorRef out, Admission.Ticket ticket, Props game) {
+		return Props.create(AdmissionGate.class, out, ticket, game);
+	}
+
+	public AdmissionGate(ActorRef out, Admission.Ticket ticket, Props game) {
+		this.out = out;
+		this.ticket = ticket;
+		this.game = game;
+	}
+
+	@Override
+	public void preStart() {
+		Admission.bind(ticket, getSelf());
+	}
+
+	@Override
+	public void postStop() {
+		Admission.release(ticket);
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(JsonNode.class, message -> {
+					// events of a waiting browser are dropped
+					if (gameActor != null) gameActor.forward(message, getContext());
+				})
+				.match(Admission.Admitted.class, admitted -> {
+					getTimers().cancel("recheck");
+					if (gameActor == null) gameActor = getContext().actorOf(game, "game");
+				})
+				.match(Admission.Position.class, position -> {
+					ObjectNode message = Json.newObject();
+					message.put("messagetype", "queuePosition");
+					message.put("position", position.position);
+					out.tell(message, getSelf());
+					getTimers().startTimerWithFixedDelay("recheck", "recheck", recheck);
+				})
+				.matchEquals("recheck", tick -> Admission.promote())
+				.build();
+	}
+}
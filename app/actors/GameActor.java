@@ -1,15 +1,17 @@
 package actors;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
+import commands.BasicCommands;
+import commands.SpectatorHub;
 import events.CardClicked;
 import events.EndTurnClicked;
 import events.EventProcessor;
@@ -20,8 +22,15 @@ import events.TileClicked;
 import events.UnitMoving;
 import events.UnitStopped;
 import play.libs.Json;
+import structures.ActionQueue;
+import structures.BroadcastTracer;
 import structures.GameState;
+import utils.Codecs;
+import utils.GameEvents;
+import utils.HighlightMap;
 import utils.ImageListForPreLoad;
+import utils.MatchFootprint;
+import utils.MatchPassivation;
 import play.libs.Json;
 
 /**
@@ -36,7 +45,6 @@ import play.libs.Json;
  */
 public class GameActor extends AbstractActor {
 
-	private ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
 	private ActorRef out; // The ActorRef can be used to send messages to the front-end UI
 	private Map<String,EventProcessor> eventProcessors; // Classes used to process each type of event
 	private GameState gameState; // A class that can be used to hold game state information
@@ -53,15 +61,7 @@ public class GameActor extends AbstractActor {
 
 
 		// create class instances to respond to the various events that we might recieve
-		eventProcessors = new HashMap<String,EventProcessor>();
-		eventProcessors.put("initalize", new Initalize());
-		eventProcessors.put("heartbeat", new Heartbeat());
-		eventProcessors.put("unitMoving", new UnitMoving());
-		eventProcessors.put("unitstopped", new UnitStopped());
-		eventProcessors.put("tileclicked", new TileClicked());
-		eventProcessors.put("cardclicked", new CardClicked());
-		eventProcessors.put("endturnclicked", new EndTurnClicked());
-		eventProcessors.put("otherclicked", new OtherClicked());
+		eventProcessors = createEventProcessors();
 
 
 		// Initalize a new game state object
@@ -72,19 +72,72 @@ public class GameActor extends AbstractActor {
 		gameState = GameState.getInstance();
 		gameState.setOut(out);
 
-		// Get the list of image files to pre-load the UI with
-		Set<String> images = ImageListForPreLoad.getImageListForPreLoad();
-		
+		// spectators of this match join with its id (see SpectatorHub)
+		SpectatorHub hub = SpectatorHub.open(out);
+		sendActorReady(out, hub.getMatchId());
+	}
+
+	@Override
+	public void postStop() {
+		SpectatorHub.close(out);
+	}
+
+	/**
+	 * The event processors, by message type
+	 * @return
+	 */
+	public static Map<String,EventProcessor> createEventProcessors() {
+		Map<String,EventProcessor> eventProcessors = new HashMap<String,EventProcessor>();
+		eventProcessors.put("initalize", new Initalize());
+		eventProcessors.put("heartbeat", new Heartbeat());
+		eventProcessors.put("unitMoving", new UnitMoving());
+		eventProcessors.put("unitstopped", new UnitStopped());
+		eventProcessors.put("tileclicked", new TileClicked());
+		eventProcessors.put("cardclicked", new CardClicked());
+		eventProcessors.put("endturnclicked", new EndTurnClicked());
+		eventProcessors.put("otherclicked", new OtherClicked());
+		return eventProcessors;
+	}
+
+	/**
+	 * Tell the front-end the actor is ready, with the list of images to pre-load
+	 * @param out
+	 */
+	public static void sendActorReady(ActorRef out) {
+		sendActorReady(out, null);
+	}
+
+	/**
+	 * As sendActorReady, with the id spectators use to watch the match
+	 * @param out
+	 * @param matchId: null if the match cannot be watched
+	 */
+	@SuppressWarnings("deprecation")
+	public static void sendActorReady(ActorRef out, String matchId) {
 		try {
-			ObjectNode readyMessage = Json.newObject();
-			readyMessage.put("messagetype", "actorReady");
-			readyMessage.put("preloadImages", mapper.readTree(mapper.writeValueAsString(images)));
-			out.tell(readyMessage, out);
+			out.tell(actorReadyMessage(matchId), out);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * The actorReady message, also the first frame of a spectator
+	 * @param matchId: null if the match cannot be watched
+	 * @return
+	 * @throws IOException
+	 */
+	public static ObjectNode actorReadyMessage(String matchId) throws IOException {
+		// Get the list of image files to pre-load the UI with
+		Set<String> images = ImageListForPreLoad.getImageListForPreLoad();
+
+		ObjectNode readyMessage = Json.newObject();
+		readyMessage.put("messagetype", "actorReady");
+		readyMessage.put("preloadImages", Codecs.toTree(images));
+		if (matchId != null) readyMessage.put("matchId", matchId);
+		return readyMessage;
+	}
+
 	/**
 	 * This method simply farms out the processing of the json messages from the front-end to the
 	 * processMessage method
@@ -106,15 +159,61 @@ public class GameActor extends AbstractActor {
 	 * @return
 	 * @throws Exception
 	 */
-	@SuppressWarnings({"deprecation"})
 	public void processMessage(String messageType, JsonNode message) throws Exception{
+		runEvent(out, eventProcessors, messageType, message);
+	}
+
+	/**
+	 * Run one event of the front-end on the game state, with the admission, tracing and
+	 * JFR bookkeeping around it; also used by MatchEntity
+	 * @param out: the player's websocket
+	 * @param eventProcessors: from createEventProcessors
+	 * @param messageType
+	 * @param message
+	 * @throws Exception
+	 */
+	public static void runEvent(ActorRef out, Map<String,EventProcessor> eventProcessors,
+			String messageType, JsonNode message) throws Exception {
+
+		if (messageType.equals(ActionQueue.droppedType)) {
+			// a click dropped on the websocket stream, the player is told here
+			BasicCommands.addPlayer1Notification(out, message.get("text").asText(), 2);
+			BasicCommands.flush();
+			return;
+		}
 
+		GameState gameState = GameState.getInstance();
 		EventProcessor processor = eventProcessors.get(messageType);
 		if (processor==null) {
 			// Unknown event type received
 			System.err.println("GameActor: Recieved unknown event type "+messageType);
 		} else {
-			processor.processEvent(out, gameState, message); // process the event
+			MatchPassivation.onAction(messageType, out); // restores an idle match
+			String dropped = gameState.getActions().begin(message); // a click that no longer applies
+			if (dropped != null) {
+				BasicCommands.addPlayer1Notification(out, dropped, 2);
+				return;
+			}
+			BroadcastTracer.beginAction(messageType); // opt-in, see BroadcastTracer
+			GameEvents.InboundAction event = new GameEvents.InboundAction(); // JFR
+			event.begin();
+			Admission.actionStarted(); // this thread is busy, see Admission
+			try {
+				processor.processEvent(out, gameState, message); // process the event
+				HighlightMap.pushIfChanged(); // what the player can do now, if the event changed it
+				if (messageType.equals("initalize") || messageType.equals("endturnclicked")) {
+					MatchFootprint.measure(); // heap of the match, for the metrics and the heap budget
+				}
+			} finally {
+				Admission.actionEnded();
+				BasicCommands.flush(); // send what the event left in the command queue
+				BroadcastTracer.endAction();
+				if (event.shouldCommit()) {
+					event.fill(message.size());
+					event.messageType = messageType;
+					event.commit();
+				}
+			}
 		}
 	}
 	
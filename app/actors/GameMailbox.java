@@ -0,0 +1,141 @@
+package actors;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import play.libs.Json;
+import scala.Option;
+
+/**
+ * Mailbox of the GameActor. The front-end sends a heartbeat every second, and while
+ * the actor is busy with an action (which can block for seconds on the animations)
+ * they pile up in front of the next click. Here the user actions are always taken
+ * first, in the order they came, and at most one heartbeat waits: a new heartbeat
+ * replaces the one already queued.
+ *
+ * Used when conf/application.conf has
+ *   game-mailbox { mailbox-type = "actors.GameMailbox" }
+ * (see GameScreenController.createGameActor); without it the game actors keep the
+ * default mailbox and a warning is logged once. The depth of the game mailboxes is
+ * kept for the metrics endpoint.
+ *
+ */
+public class GameMailbox implements MailboxType, ProducesMessageQueue<GameMailbox.GameMessageQueue> {
+
+	public static final String configPath = "game-mailbox";
+
+	// messages queued in all the game mailboxes, the highest depth seen and the heartbeats dropped
+	private static final AtomicInteger depth = new AtomicInteger();
+	private static final AtomicInteger maxDepth = new AtomicInteger();
+	private static final AtomicLong collapsedHeartbeats = new AtomicLong();
+
+	private static final Logger logger = LoggerFactory.getLogger(GameMailbox.class);
+	private static final AtomicBoolean warned = new AtomicBoolean();
+
+	public GameMailbox(ActorSystem.Settings settings, Config config) {
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new GameMessageQueue();
+	}
+
+	/**
+	 * the user actions first, then the latest heartbeat
+	 */
+	public static class GameMessageQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+		private final Queue<Envelope> actions = new ConcurrentLinkedQueue<>();
+		private final AtomicReference<Envelope> heartbeat = new AtomicReference<>();
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			if (isHeartbeat(handle.message())) {
+				if (heartbeat.getAndSet(handle) != null) {
+					collapsedHeartbeats.incrementAndGet();
+					return;
+				}
+			} else {
+				actions.add(handle);
+			}
+			count.incrementAndGet();
+			maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+		}
+
+		@Override
+		public Envelope dequeue() {
+			Envelope next = actions.poll();
+			if (next == null) next = heartbeat.getAndSet(null);
+			if (next != null) {
+				count.decrementAndGet();
+				depth.decrementAndGet();
+			}
+			return next;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return count.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return count.get() > 0;
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			Envelope envelope;
+			while ((envelope = dequeue()) != null) {
+				deadLetters.enqueue(owner, envelope);
+			}
+		}
+	}
+
+	/**
+	 * check the mailbox is configured, warning once if it is not
+	 * @param config: of the actor system
+	 * @return boolean: true - the game actors can use it
+	 */
+	public static boolean isConfigured(Config config) {
+		if (config.hasPath(configPath)) return true;
+		if (warned.compareAndSet(false, true)) {
+			logger.warn("No {} in the config, the game actors use the default mailbox and heartbeats are not collapsed."
+					+ " Add: {} { mailbox-type = \"{}\" }", configPath, configPath, GameMailbox.class.getName());
+		}
+		return false;
+	}
+
+	static boolean isHeartbeat(Object message) {
+		return message instanceof JsonNode
+				&& "heartbeat".equals(((JsonNode) message).path("messagetype").asText());
+	}
+
+	/**
+	 * the mailbox gauges, for the metrics endpoint
+	 */
+	public static ObjectNode toJson() {
+		ObjectNode json = Json.newObject();
+		json.put("depth", depth.get());
+		json.put("maxDepth", maxDepth.get());
+		json.put("collapsedHeartbeats", collapsedHeartbeats.get());
+		return json;
+	}
+}
@@ -0,0 +1,105 @@
+package actors;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
+import akka.cluster.Cluster;
+import akka.cluster.sharding.ShardRegion;
+import events.EventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.libs.Json;
+import structures.GameState;
+
+/**
+ * One match as a cluster sharded entity (see MatchSharding). The player's socket
+ * joins seat 0 and sends its events here, the match runs them as GameActor does
+ * (GameActor.runEvent). The acks of the front-end are taken by MatchSharding.Extractor
+ * on the way in, as the entity is busy running the action that waits for them.
+ *
+ * The game state is still a single GameState per JVM, so the entity takes the match
+ * slot of its node through Admission, like a GameActor does: while the node plays
+ * another match, sharded or not, the entity is refused and its player is told to
+ * try again. The rules know one human player against the AIPlayer, so there is only
+ * seat 0.
+ * 
+ */
+public class MatchEntity extends AbstractActor {
+
+	private static final Logger logger = LoggerFactory.getLogger(MatchEntity.class);
+
+	private final String matchId = getSelf().path().name();
+	private final ActorRef[] seats = new ActorRef[1];
+	private final Map<String,EventProcessor> eventProcessors = GameActor.createEventProcessors();
+	// the match slot of this node, null if the entity was refused
+	private Admission.Ticket ticket = null;
+
+	@Override
+	public void preStart() {
+		ticket = Admission.tryEnter();
+		logger.info("Match {} {} on {}", matchId, ticket != null ? "started" : "refused",
+				Cluster.get(getContext().getSystem()).selfAddress());
+	}
+
+	@Override
+	public void postStop() {
+		if (ticket != null) {
+			Admission.release(ticket);
+		}
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(MatchEnvelope.class, envelope -> {
+					switch (envelope.kind) {
+						case JOIN: join(envelope.seat, envelope.player); break;
+						case LEAVE: leave(envelope.seat); break;
+						case EVENT: event(envelope.seat, Json.parse(envelope.event)); break;
+					}
+				}).build();
+	}
+
+	private void join(int seat, ActorRef player) {
+		if (seat != 0) {
+			notify(player, "This match has one seat");
+			return;
+		}
+		seats[seat] = player;
+
+		if (ticket == null) {
+			notify(player, "This server is running another match, please try again");
+			return;
+		}
+		GameState.getInstance().clear();
+		GameState.getInstance().setOut(player);
+		GameActor.sendActorReady(player);
+	}
+
+	private void leave(int seat) {
+		if (seat != 0) return;
+		seats[seat] = null;
+		//nobody left, stop the match
+		getContext().getParent().tell(new ShardRegion.Passivate(PoisonPill.getInstance()), getSelf());
+	}
+
+	private void event(int seat, JsonNode message) throws Exception {
+		if (ticket == null || seat != 0 || message.get("messagetype") == null) return;
+
+		GameActor.runEvent(seats[0], eventProcessors, message.get("messagetype").asText(), message);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static void notify(ActorRef player, String text) {
+		ObjectNode message = Json.newObject();
+		message.put("messagetype", "addPlayer1Notification");
+		message.put("text", text);
+		message.put("seconds", 5);
+		player.tell(message, player);
+	}
+}
@@ -0,0 +1,46 @@
+package actors;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import akka.actor.ActorRef;
+
+/**
+ * A message for the match entity of a match, routed by the shard region.
+ * The event is kept as JSON text so it can be sent between nodes as it is; the
+ * envelope itself is sent with Akka's Jackson serializer (see MatchSharding).
+ * 
+ */
+public class MatchEnvelope {
+
+	public enum Kind { JOIN, LEAVE, EVENT }
+
+	public final String matchId;
+	public final int seat; // 0
+	public final Kind kind;
+	public final String event; // EVENT only
+	public final ActorRef player; // JOIN only: where the commands for this seat go
+
+	@JsonCreator
+	private MatchEnvelope(@JsonProperty("matchId") String matchId, @JsonProperty("seat") int seat,
+			@JsonProperty("kind") Kind kind, @JsonProperty("event") String event,
+			@JsonProperty("player") ActorRef player) {
+		this.matchId = matchId;
+		this.seat = seat;
+		this.kind = kind;
+		this.event = event;
+		this.player = player;
+	}
+
+	public static MatchEnvelope join(String matchId, int seat, ActorRef player) {
+		return new MatchEnvelope(matchId, seat, Kind.JOIN, null, player);
+	}
+
+	public static MatchEnvelope leave(String matchId, int seat) {
+		return new MatchEnvelope(matchId, seat, Kind.LEAVE, null, null);
+	}
+
+	public static MatchEnvelope event(String matchId, int seat, String event) {
+		return new MatchEnvelope(matchId, seat, Kind.EVENT, event, null);
+	}
+}
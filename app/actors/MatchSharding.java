@@ -0,0 +1,78 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.cluster.sharding.ClusterSharding;
+import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardRegion;
+import play.libs.Json;
+import structures.GameState;
+
+/**
+ * Cluster sharding of the matches: each match is a MatchEntity, living on one node
+ * of the cluster, and the player's socket on any node reaches it through the shard
+ * region. A match has a single seat (one player against the AIPlayer), and a node
+ * plays one match at a time (see MatchEntity): the default shard allocation does not
+ * know that, so a match allocated to a busy node is refused rather than moved.
+ *
+ * Off unless the server is started with -Dmatch.sharding=true. It then needs
+ * akka-cluster-sharding, akka-serialization-jackson and this configuration:
+ *
+ *   akka.actor.provider = cluster
+ *   akka.actor.serialization-bindings { "actors.MatchEnvelope" = jackson-json }
+ *
+ */
+public class MatchSharding {
+
+	public static final String typeName = "Match";
+	public static boolean enabled = Boolean.getBoolean("match.sharding");
+	// number of shards, about ten times the planned number of nodes
+	public static int numberOfShards = 100;
+
+	private static ActorRef region = null;
+
+	/**
+	 * routes an envelope to its match by the match id
+	 */
+	public static class Extractor extends ShardRegion.HashCodeMessageExtractor {
+
+		public Extractor() {
+			super(numberOfShards);
+		}
+
+		/**
+		 * an event is looked at on the node of its match before it is queued for the
+		 * entity: the entity is busy running the action that waits for its acks
+		 */
+		@Override
+		public Object entityMessage(Object message) {
+			if (message instanceof MatchEnvelope && ((MatchEnvelope) message).kind == MatchEnvelope.Kind.EVENT) {
+				String event = ((MatchEnvelope) message).event;
+				if (event.contains("ackId")) GameState.getInstance().getAcks().onClientEvent(Json.parse(event));
+			}
+			return message;
+		}
+
+		@Override
+		public String entityId(Object message) {
+			if (message instanceof MatchEnvelope) {
+				return ((MatchEnvelope) message).matchId;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * the shard region of the matches, started on first use
+	 * @param system
+	 * @return
+	 */
+	public static synchronized ActorRef region(ActorSystem system) {
+		if (region == null) {
+			region = ClusterSharding.get(system).start(typeName, Props.create(MatchEntity.class),
+					ClusterShardingSettings.create(system), new Extractor());
+		}
+		return region;
+	}
+}
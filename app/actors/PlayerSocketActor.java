@@ -0,0 +1,50 @@
+package actors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+
+/**
+ * The websocket of one seat of a sharded match. Events from the browser are
+ * wrapped in a MatchEnvelope and sent to the match, wherever it is in the cluster;
+ * the match sends the commands straight to the socket (out).
+ * 
+ */
+public class PlayerSocketActor extends AbstractActor {
+
+	private final ActorRef out;
+	private final ActorRef region;
+	private final String matchId;
+	private final int seat;
+
+	public static Props props(ActorRef out, ActorRef region, String matchId, int seat) {
+		return Props.create(PlayerSocketActor.class, out, region, matchId, seat);
+	}
+
+	public PlayerSocketActor(ActorRef out, ActorRef region, String matchId, int seat) {
+		this.out = out;
+		this.region = region;
+		this.matchId = matchId;
+		this.seat = seat;
+	}
+
+	@Override
+	public void preStart() {
+		region.tell(MatchEnvelope.join(matchId, seat, out), getSelf());
+	}
+
+	@Override
+	public void postStop() {
+		region.tell(MatchEnvelope.leave(matchId, seat), ActorRef.noSender());
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(JsonNode.class, message -> {
+					region.tell(MatchEnvelope.event(matchId, seat, message.toString()), getSelf());
+				}).build();
+	}
+}
@@ -1,6 +1,7 @@
 package commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import akka.actor.ActorRef;
@@ -11,6 +12,7 @@ import structures.basic.Player;
 import structures.basic.Tile;
 import structures.basic.Unit;
 import structures.basic.UnitAnimationType;
+import utils.Codecs;
 
 
 /**
@@ -22,8 +24,6 @@ import structures.basic.UnitAnimationType;
  */
 public class BasicCommands {
 
-	private static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
-	
 	// An alternative class with a 'tell' implementation can be given if writing unit tests
 	// and need to have a null ActorRef. This should be null during normal operation.
 	public static DummyTell altTell = null;
@@ -41,17 +41,21 @@ public class BasicCommands {
 	@SuppressWarnings({"deprecation"})
 	public static void drawTile(ActorRef out, Tile tile, int mode) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawTile");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.offer(out, drawTileMessage(tile, mode), "tile:"+tile.getTilex()+":"+tile.getTiley());
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	@SuppressWarnings({"deprecation"})
+	public static ObjectNode drawTileMessage(Tile tile, int mode) throws IOException {
+		ObjectNode returnMessage = Json.newObject();
+		returnMessage.put("messagetype", "drawTile");
+		returnMessage.put("tile", Codecs.toTree(tile));
+		returnMessage.put("mode", mode);
+		return returnMessage;
+	}
+	
 	/**
 	 * drawUnit will draw the sprite for a unit (a picture of that unit with its attack and health values) on the board. 
 	 * This command takes as input a target Tile (a ‘square’ of the main game grid) to place the unit’s sprite upon, 
@@ -63,17 +67,21 @@ public class BasicCommands {
 	@SuppressWarnings({"deprecation"})
 	public static void drawUnit(ActorRef out, Unit unit, Tile tile) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawUnit");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.send(out, drawUnitMessage(unit, tile));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	@SuppressWarnings({"deprecation"})
+	public static ObjectNode drawUnitMessage(Unit unit, Tile tile) throws IOException {
+		ObjectNode returnMessage = Json.newObject();
+		returnMessage.put("messagetype", "drawUnit");
+		returnMessage.put("tile", Codecs.toTree(tile));
+		returnMessage.put("unit", Codecs.toTree(unit));
+		return returnMessage;
+	}
+	
 	/**
 	 * This command changes the visualised attack value just under a unit’s sprite to a value between 0 
 	 * and 20. The command takes in a unit instance. The associated values are read from the unit object.
@@ -84,17 +92,21 @@ public class BasicCommands {
 	@SuppressWarnings({"deprecation"})
 	public static void setUnitAttack(ActorRef out, Unit unit, int attack) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setUnitAttack");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("attack", attack);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.offer(out, setUnitAttackMessage(unit, attack), "attack:"+unit.getId());
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	@SuppressWarnings({"deprecation"})
+	public static ObjectNode setUnitAttackMessage(Unit unit, int attack) throws IOException {
+		ObjectNode returnMessage = Json.newObject();
+		returnMessage.put("messagetype", "setUnitAttack");
+		returnMessage.put("unit", Codecs.toTree(unit));
+		returnMessage.put("attack", attack);
+		return returnMessage;
+	}
+	
 	/**
 	 * This command changes the visualised health value just under a unit’s sprite to a value between 0 
 	 * and 20. The command takes in a unit instance. The associated values are read from the unit object.
@@ -105,17 +117,21 @@ public class BasicCommands {
 	@SuppressWarnings({"deprecation"})
 	public static void setUnitHealth(ActorRef out, Unit unit, int health) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setUnitHealth");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("health", health);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.offer(out, setUnitHealthMessage(unit, health), "health:"+unit.getId());
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	@SuppressWarnings({"deprecation"})
+	public static ObjectNode setUnitHealthMessage(Unit unit, int health) throws IOException {
+		ObjectNode returnMessage = Json.newObject();
+		returnMessage.put("messagetype", "setUnitHealth");
+		returnMessage.put("unit", Codecs.toTree(unit));
+		returnMessage.put("health", health);
+		return returnMessage;
+	}
+	
 	/**
 	 * This command moves a unit sprite from one tile to another. It takes in the unit’s object and the target Tile. 
 	 * Note that this command will start the movement, it may take multiple seconds for the movement to complete.
@@ -128,10 +144,9 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "moveUnitToTile");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("unit", Codecs.toTree(unit));
+			returnMessage.put("tile", Codecs.toTree(tile));
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -152,10 +167,33 @@ public class BasicCommands {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "moveUnitToTile");
 			returnMessage.put("yfirst", yfirst);
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("unit", Codecs.toTree(unit));
+			returnMessage.put("tile", Codecs.toTree(tile));
+			CommandQueue.send(out, returnMessage);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * As moveUnitToTile, with an ack id the front-end echoes back in its unitstopped event
+	 * so the game knows when the move has finished.
+	 * @param out
+	 * @param unit
+	 * @param tile
+	 * @param yfirst
+	 * @param ackId
+	 */
+	@SuppressWarnings({"deprecation"})
+	public static void moveUnitToTile(ActorRef out, Unit unit, Tile tile, boolean yfirst, int ackId) {
+		try {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "moveUnitToTile");
+			returnMessage.put("yfirst", yfirst);
+			returnMessage.put("ackId", ackId);
+			returnMessage.put("unit", Codecs.toTree(unit));
+			returnMessage.put("tile", Codecs.toTree(tile));
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -177,10 +215,34 @@ public class BasicCommands {
 			
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "playUnitAnimation");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
+			returnMessage.put("unit", Codecs.toTree(unit));
 			returnMessage.put("animation", animationToPlay.toString());
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.send(out, returnMessage);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * As playUnitAnimation, with an ack id the front-end echoes back in a unitstopped
+	 * event once the animation has played through.
+	 * @param out
+	 * @param unit
+	 * @param animationToPlay
+	 * @param ackId
+	 */
+	@SuppressWarnings({"deprecation"})
+	public static void playUnitAnimation(ActorRef out, Unit unit, UnitAnimationType animationToPlay, int ackId) {
+		try {
+			
+			unit.setAnimation(animationToPlay);
+			
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "playUnitAnimation");
+			returnMessage.put("unit", Codecs.toTree(unit));
+			returnMessage.put("animation", animationToPlay.toString());
+			returnMessage.put("ackId", ackId);
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -197,9 +259,8 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "deleteUnit");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("unit", Codecs.toTree(unit));
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -217,9 +278,8 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer1Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("player", Codecs.toTree(player));
+			CommandQueue.offer(out, returnMessage, "player1Health");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -237,9 +297,8 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer2Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("player", Codecs.toTree(player));
+			CommandQueue.offer(out, returnMessage, "player2Health");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -257,9 +316,8 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer1Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("player", Codecs.toTree(player));
+			CommandQueue.offer(out, returnMessage, "player1Mana");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -277,9 +335,8 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer2Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("player", Codecs.toTree(player));
+			CommandQueue.offer(out, returnMessage, "player2Mana");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -299,11 +356,10 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawCard");
-			returnMessage.put("card", mapper.readTree(mapper.writeValueAsString(card)));
+			returnMessage.put("card", Codecs.toTree(card));
 			returnMessage.put("position", position);
 			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.offer(out, returnMessage, "card:"+position);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -319,8 +375,7 @@ public class BasicCommands {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "deleteCard");
 			returnMessage.put("position", position);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.offer(out, returnMessage, "card:"+position);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -338,10 +393,9 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "playEffectAnimation");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("effect", Codecs.toTree(effect));
+			returnMessage.put("tile", Codecs.toTree(tile));
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -361,8 +415,7 @@ public class BasicCommands {
 			returnMessage.put("messagetype", "addPlayer1Notification");
 			returnMessage.put("text", text);
 			returnMessage.put("seconds", displayTimeSeconds);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -379,15 +432,41 @@ public class BasicCommands {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawProjectile");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(startTile)));
-			returnMessage.put("targetTile", mapper.readTree(mapper.writeValueAsString(targetTile)));
-			returnMessage.put("mode", mapper.readTree(mapper.writeValueAsString(mode)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.put("effect", Codecs.toTree(effect));
+			returnMessage.put("tile", Codecs.toTree(startTile));
+			returnMessage.put("targetTile", Codecs.toTree(targetTile));
+			returnMessage.put("mode", Codecs.toTree(mode));
+			CommandQueue.send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * Send the highlights the player can show without asking the server (see utils.HighlightMap).
+	 * A newer map replaces one still waiting in the queue.
+	 * @param out
+	 * @param highlightMap
+	 */
+	public static void highlightMap(ActorRef out, ObjectNode highlightMap) {
+		CommandQueue.offer(out, highlightMap, "highlightMap");
+	}
+	
+	/**
+	 * Send a batch of commands prepared ahead, as one frame: { messagetype = "batch", commands = [...] }.
+	 * The front-end runs the commands in order.
+	 * @param out
+	 * @param batch
+	 */
+	public static void batch(ActorRef out, ObjectNode batch) {
+		CommandQueue.send(out, batch);
+	}
+	
+	/**
+	 * Send the commands still held in the CommandQueue
+	 */
+	public static void flush() {
+		CommandQueue.flush();
+	}
+	
 }
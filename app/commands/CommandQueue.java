@@ -0,0 +1,169 @@
+package commands;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.actor.ActorRef;
+import utils.GameEvents;
+
+/**
+ * Outbound queue in front of the websockets. Commands that only set the state of
+ * a tile, a unit stat, a player stat or a hand slot are held for a short window
+ * under a key (e.g. "tile:3:2") of their websocket, and a later command with the same
+ * key to the same websocket replaces the earlier one, so the front-end only draws the
+ * last state. Any other command
+ * (animations, moves, drawUnit, deleteUnit, notifications...) first flushes the
+ * queue and is then sent straight away, so their order is kept.
+ *
+ * The queue is flushed by a timer when the window is over, before the game waits for
+ * the front-end (ToolBox.pause, ClientAcks) and at the end of every event (GameActor).
+ * What is sent to the player is also published to the spectators (SpectatorHub).
+ *
+ */
+public class CommandQueue {
+
+	// longest time a command is held, one frame of the front-end
+	public static final long windowMillis = 16;
+
+	private static final Map<Slot, Pending> pending = new LinkedHashMap<>();
+	private static long windowStart = 0;
+	// number of the current window, so the timer of a window already flushed does nothing
+	private static long window = 0;
+
+	private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "command-flush");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// counters, for the benchmarks
+	private static long sent = 0;
+	private static long coalesced = 0;
+
+	private static class Pending {
+		final ActorRef out;
+		final ObjectNode message;
+		final String key;
+
+		Pending(ActorRef out, ObjectNode message, String key) {
+			this.out = out;
+			this.message = message;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * a key of a websocket
+	 */
+	private static final class Slot {
+		final ActorRef out;
+		final String key;
+
+		Slot(ActorRef out, String key) {
+			this.out = out;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Slot)) return false;
+			return Objects.equals(out, ((Slot) other).out) && key.equals(((Slot) other).key);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(out, key);
+		}
+	}
+
+	/**
+	 * queue a command which is superseded by a later one with the same key
+	 * @param out
+	 * @param message
+	 * @param key: the tile, unit stat or slot the command sets
+	 */
+	public static synchronized void offer(ActorRef out, ObjectNode message, String key) {
+		long now = System.currentTimeMillis();
+		if (!pending.isEmpty() && now - windowStart >= windowMillis) {
+			flush();
+		}
+		if (pending.isEmpty()) {
+			windowStart = now;
+			long current = ++window;
+			timer.schedule(() -> flushWindow(current), windowMillis, TimeUnit.MILLISECONDS);
+		}
+		if (pending.put(new Slot(out, key), new Pending(out, message, key)) != null) {
+			coalesced++;
+		}
+	}
+
+	/**
+	 * send a command in order: everything queued before it goes first
+	 * @param out
+	 * @param message
+	 */
+	public static synchronized void send(ActorRef out, ObjectNode message) {
+		flush();
+		deliver(out, message, null);
+	}
+
+	/**
+	 * send all queued commands
+	 */
+	public static synchronized void flush() {
+		Iterator<Pending> iterator = pending.values().iterator();
+		while (iterator.hasNext()) {
+			Pending command = iterator.next();
+			iterator.remove();
+			deliver(command.out, command.message, command.key);
+		}
+	}
+
+	/**
+	 * the window is over: send what it still holds
+	 */
+	private static synchronized void flushWindow(long flushed) {
+		if (flushed == window) flush();
+	}
+
+	/**
+	 * drop the queued commands, e.g. when a new game starts
+	 */
+	public static synchronized void discard() {
+		pending.clear();
+	}
+
+	private static void deliver(ActorRef out, ObjectNode message, String key) {
+		GameEvents.CommandSent event = new GameEvents.CommandSent();
+		event.begin();
+		try {
+			sent++;
+			if (BasicCommands.altTell!=null) BasicCommands.altTell.tell(message);
+			else out.tell(message, out);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		SpectatorHub.publish(out, message, key);
+		if (event.shouldCommit()) {
+			event.fill(message.toString().length());
+			event.command = message.get("messagetype").asText();
+			event.coalescable = key != null;
+			event.commit();
+		}
+	}
+
+	public static synchronized long getSent() {
+		return sent;
+	}
+
+	public static synchronized long getCoalesced() {
+		return coalesced;
+	}
+}
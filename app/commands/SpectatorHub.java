@@ -0,0 +1,246 @@
+package commands;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.NotUsed;
+import akka.actor.ActorRef;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import play.libs.Json;
+import utils.WireCodec;
+
+/**
+ * Fan-out of a match to its spectators. Every command sent to the player is encoded
+ * once and the same String is offered to each spectator socket of the match.
+ *
+ * There is one hub per player websocket, opened by the GameActor and found by its
+ * match id, which the page gets in actorReady. Spectators join with the match id on
+ * the game socket url (see GameScreenController.socket).
+ *
+ * Each spectator has a bounded buffer. When a spectator is too slow and its buffer
+ * overflows, it gets a "resync" frame (the latest state of every tile, unit, player
+ * stat and hand slot) and the single commands after it. The resync frame is built
+ * from the last command sent for each CommandQueue key, so the board never has to be
+ * walked for it.
+ *
+ */
+public class SpectatorHub {
+
+	// commands buffered per spectator
+	public static int bufferSize = 256;
+
+	private static final Map<ActorRef, SpectatorHub> byPlayer = new ConcurrentHashMap<>();
+	private static final Map<String, SpectatorHub> byMatchId = new ConcurrentHashMap<>();
+
+	private final String matchId;
+	private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+	// the latest state, by CommandQueue key (and unit:<id> for the unit sprites)
+	private final Map<String, ObjectNode> latest = new LinkedHashMap<>();
+
+	private static class Spectator {
+		final SourceQueueWithComplete<String> queue;
+		// a frame was dropped: the spectator needs a resync frame
+		volatile boolean resync = true;
+		// a resync frame is offered and its result has not come yet
+		volatile boolean resyncOffered = false;
+
+		Spectator(SourceQueueWithComplete<String> queue) {
+			this.queue = queue;
+		}
+	}
+
+	private SpectatorHub(String matchId) {
+		this.matchId = matchId;
+	}
+
+	/**
+	 * open the hub of a player's match
+	 * @param player: the websocket of the player
+	 * @return the hub
+	 */
+	public static SpectatorHub open(ActorRef player) {
+		SpectatorHub hub = new SpectatorHub(UUID.randomUUID().toString());
+		byPlayer.put(player, hub);
+		byMatchId.put(hub.matchId, hub);
+		return hub;
+	}
+
+	/**
+	 * the player's websocket is closed: end the spectators' streams
+	 */
+	public static void close(ActorRef player) {
+		SpectatorHub hub = byPlayer.remove(player);
+		if (hub == null) return;
+		byMatchId.remove(hub.matchId);
+		for (Spectator spectator : hub.spectators) {
+			spectator.queue.complete();
+		}
+	}
+
+	/**
+	 * @param matchId
+	 * @return the hub of the match, or null if there is no such match
+	 */
+	public static SpectatorHub find(String matchId) {
+		return matchId == null ? null : byMatchId.get(matchId);
+	}
+
+	public String getMatchId() {
+		return matchId;
+	}
+
+	/**
+	 * A stream of the match for a new spectator, starting with a resync frame
+	 * @return encoded JSON frames
+	 */
+	public Source<String, NotUsed> subscribe() {
+		return Source.<String>queue(bufferSize, OverflowStrategy.dropNew())
+				.mapMaterializedValue(queue -> {
+					Spectator spectator = new Spectator(queue);
+					spectators.add(spectator);
+					queue.watchCompletion().whenComplete((done, e) -> spectators.remove(spectator));
+					offerResync(spectator, resyncFrame());
+					return NotUsed.getInstance();
+				});
+	}
+
+	public int spectatorCount() {
+		return spectators.size();
+	}
+
+	/**
+	 * publish a command sent to a player
+	 * @param out: the player's websocket
+	 * @param message
+	 * @param key: CommandQueue key of the command, null if it does not set a state
+	 */
+	static void publish(ActorRef out, ObjectNode message, String key) {
+		SpectatorHub hub = out == null ? null : byPlayer.get(out);
+		if (hub != null) hub.publish(message, key);
+	}
+
+	private void publish(ObjectNode message, String key) {
+		remember(message, key);
+		if (spectators.isEmpty()) return;
+
+		String frame;
+		try {
+			frame = WireCodec.toJson(message);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		}
+
+		String resync = null;
+		for (Spectator spectator : spectators) {
+			if (spectator.resync && !spectator.resyncOffered) {
+				if (resync == null) resync = resyncFrame();
+				offerResync(spectator, resync);
+			} else {
+				//the commands after an offered resync frame follow it
+				offer(spectator, frame);
+			}
+		}
+	}
+
+	/**
+	 * a new match for the player: forget the state and resync the spectators
+	 */
+	public static void reset(ActorRef player) {
+		SpectatorHub hub = player == null ? null : byPlayer.get(player);
+		if (hub == null) return;
+		synchronized (hub) {
+			hub.latest.clear();
+		}
+		for (Spectator spectator : hub.spectators) {
+			spectator.resync = true;
+		}
+	}
+
+	private static void offer(Spectator spectator, String frame) {
+		spectator.queue.offer(frame).whenComplete((result, e) -> {
+			if (e != null || result != QueueOfferResult.enqueued()) {
+				//dropped: the spectator needs a resync
+				spectator.resync = true;
+			}
+		});
+	}
+
+	private static void offerResync(Spectator spectator, String frame) {
+		spectator.resyncOffered = true;
+		spectator.queue.offer(frame).whenComplete((result, e) -> {
+			//the results come in the order of the offers, a later drop sets resync again
+			if (e == null && result == QueueOfferResult.enqueued()) spectator.resync = false;
+			spectator.resyncOffered = false;
+		});
+	}
+
+	private synchronized void remember(ObjectNode message, String key) {
+		String type = message.get("messagetype").asText();
+		if (key != null) {
+			latest.put(key, message);
+		} else if (type.equals("batch")) {
+			//the commands of the batch, with the keys BasicCommands gives them
+			for (JsonNode command : message.get("commands")) {
+				String commandType = command.get("messagetype").asText();
+				String commandKey = null;
+				if (commandType.equals("drawTile")) {
+					commandKey = "tile:" + command.get("tile").get("tilex").asInt() + ":" + command.get("tile").get("tiley").asInt();
+				} else if (commandType.equals("setUnitHealth")) {
+					commandKey = "health:" + command.get("unit").get("id").asInt();
+				} else if (commandType.equals("setUnitAttack")) {
+					commandKey = "attack:" + command.get("unit").get("id").asInt();
+				}
+				remember((ObjectNode) command, commandKey);
+			}
+		} else if (type.equals("drawUnit")) {
+			latest.put("unit:" + message.get("unit").get("id").asInt(), message);
+		} else if (type.equals("moveUnitToTile")) {
+			//the unit is drawn where it moved to
+			ObjectNode drawUnit = Json.newObject();
+			drawUnit.put("messagetype", "drawUnit");
+			drawUnit.set("tile", message.get("tile"));
+			drawUnit.set("unit", message.get("unit"));
+			latest.put("unit:" + message.get("unit").get("id").asInt(), drawUnit);
+		} else if (type.equals("deleteUnit")) {
+			int id = message.get("unit").get("id").asInt();
+			latest.remove("unit:" + id);
+			latest.remove("health:" + id);
+			latest.remove("attack:" + id);
+		}
+	}
+
+	private synchronized String resyncFrame() {
+		ObjectNode frame = Json.newObject();
+		frame.put("messagetype", "resync");
+		ArrayNode commands = frame.putArray("commands");
+		//tiles first, then the units on them, then the stats
+		List<JsonNode> units = new ArrayList<>();
+		List<JsonNode> stats = new ArrayList<>();
+		for (Map.Entry<String, ObjectNode> entry : latest.entrySet()) {
+			if (entry.getKey().startsWith("tile:")) commands.add(entry.getValue());
+			else if (entry.getKey().startsWith("unit:")) units.add(entry.getValue());
+			else stats.add(entry.getValue());
+		}
+		commands.addAll(units);
+		commands.addAll(stats);
+		try {
+			return WireCodec.toJson(frame);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return "{\"messagetype\":\"resync\",\"commands\":[]}";
+		}
+	}
+}
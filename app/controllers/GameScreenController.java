@@ -2,19 +2,45 @@ package controllers;
 
 import javax.inject.Inject;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import actors.Admission;
+import actors.AdmissionGate;
 import actors.GameActor;
+import actors.GameMailbox;
+import actors.MatchSharding;
+import actors.PlayerSocketActor;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.SpectatorHub;
 import play.data.Form;
 import play.data.FormFactory;
+import play.http.websocket.Message;
+import play.libs.F;
+import play.libs.Json;
+import play.libs.Scala;
 import play.libs.streams.ActorFlow;
 import play.mvc.Controller;
 import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.WebSocket;
+import structures.GameState;
 import structures.User;
+import utils.GameDataBundle;
+import utils.MatchFootprint;
+import utils.MatchTemplates;
+import utils.WireCodec;
 
 /**
  * This is the Controller class for the game. 
@@ -26,23 +52,182 @@ public class GameScreenController extends Controller {
 	private final ActorSystem actorSystem;
 	private final Materializer materializer;
 	Form<User> userForm = null;
+
+	// websocket carrying Smile binary frames. Text frames are still read as JSON,
+	// so a client can fall back without reconnecting
+	private static final WebSocket.MappedWebSocketAcceptor<JsonNode, JsonNode> Smile =
+			new WebSocket.MappedWebSocketAcceptor<>(
+					Scala.partialFunction(message -> {
+						try {
+							if (message instanceof Message.Binary) {
+								return F.Either.Left(WireCodec.readSmileFrame(((Message.Binary) message).data().toArray()));
+							} else if (message instanceof Message.Text) {
+								return F.Either.Left(WireCodec.readJsonFrame(((Message.Text) message).data()));
+							}
+						} catch (Exception e) {
+							return F.Either.Right(new Message.Close(1003, e.getMessage()));
+						}
+						throw Scala.noMatch();
+					}),
+					json -> {
+						try {
+							return new Message.Binary(ByteString.fromArray(WireCodec.toSmile(json)));
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					});
+
+	// websocket carrying JSON text, as WebSocket.Json, with the frames measured on the
+	// way in (see WireCodec.readJsonFrame)
+	private static final WebSocket.MappedWebSocketAcceptor<JsonNode, JsonNode> JsonText =
+			new WebSocket.MappedWebSocketAcceptor<>(
+					Scala.partialFunction(message -> {
+						try {
+							if (message instanceof Message.Text) {
+								return F.Either.Left(WireCodec.readJsonFrame(((Message.Text) message).data()));
+							}
+						} catch (Exception e) {
+							return F.Either.Right(new Message.Close(1003, e.getMessage()));
+						}
+						throw Scala.noMatch();
+					}),
+					json -> {
+						try {
+							return new Message.Text(WireCodec.toJson(json));
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					});
 	
 	
 	@Inject
 	public GameScreenController(FormFactory formFactory, ActorSystem actorSystem, Materializer materializer) {
 		this.actorSystem = actorSystem;
 		this.materializer = materializer;
+		Admission.configure(actorSystem.settings().config());
+		GameDataBundle.open();
+		MatchTemplates.refill();
 		userForm = formFactory.form(User.class);
 	}
 
 	/**
-	 * This responds to the request for creation of the Websocket 
+	 * This responds to the request for creation of the Websocket.
+	 * The encoding is JSON text unless Smile is enabled (-Dmatch.smile=true) and the
+	 * client asks for codec=smile on the url.
+	 * A connection waits for a free match (see Admission), and is refused (503) when
+	 * the wait queue is full.
+	 * With spectate=<match id> on the url, the socket watches that match instead.
 	 * @return
 	 */
 	public WebSocket socket() {
+		return new WebSocket() {
+			@Override
+			public CompletionStage<F.Either<Result, Flow<Message, Message, ?>>> apply(Http.RequestHeader request) {
+				if (request.getQueryString("spectate") != null) {
+					return spectate(request);
+				}
+				Admission.Ticket ticket = Admission.enter();
+				if (ticket == null) {
+					return CompletableFuture.completedFuture(F.Either.Left(
+							status(SERVICE_UNAVAILABLE, "The server is full, please try again later")
+									.withHeader(RETRY_AFTER, String.valueOf(Admission.retryAfterSeconds))));
+				}
+				WebSocket.MappedWebSocketAcceptor<JsonNode, JsonNode> acceptor =
+						WireCodec.isSmile(request.getQueryString("codec")) ? Smile : JsonText;
+				// a refused upgrade never starts the gate, which would free the ticket
+				return acceptor.accept(r -> gameFlow(ticket)).apply(request)
+						.whenComplete((result, error) -> {
+							if (error != null || result.left.isPresent()) Admission.release(ticket);
+						});
+			}
+		};
+	}
+
+	/**
+	 * Websocket for a spectator of a match: the commands sent to the player are
+	 * streamed as JSON text, anything the spectator sends is ignored.
+	 * @param request: spectate=<match id>, the matchId of the player's actorReady
+	 * @return
+	 */
+	private CompletionStage<F.Either<Result, Flow<Message, Message, ?>>> spectate(Http.RequestHeader request) {
+		SpectatorHub hub = SpectatorHub.find(request.getQueryString("spectate"));
+		if (hub == null) {
+			return CompletableFuture.completedFuture(F.Either.Left(notFound("There is no such match")));
+		}
+		String ready;
+		try {
+			// the page loads its images first, as for a player
+			ready = WireCodec.toJson(GameActor.actorReadyMessage(null));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return CompletableFuture.completedFuture(F.Either.Left(internalServerError()));
+		}
+		return WebSocket.Text.accept(r -> Flow.fromSinkAndSource(Sink.<String>ignore(),
+				Source.single(ready).concat(hub.subscribe())))
+				.apply(request);
+	}
+
+	/**
+	 * Websocket of the player of a cluster sharded match (see actors.MatchSharding),
+	 * when sharding is enabled.
+	 * Needs a route, e.g. GET /match/:matchId/:seat controllers.GameScreenController.match(matchId: String, seat: Int)
+	 * @param matchId
+	 * @param seat: 0, a match has one seat
+	 * @return
+	 */
+	public WebSocket match(String matchId, int seat) {
+		return WebSocket.Json.acceptOrResult(request -> {
+			if (!MatchSharding.enabled) {
+				return CompletableFuture.completedFuture(F.Either.Left(notFound("Sharded matches are not enabled")));
+			}
+			if (seat != 0) {
+				return CompletableFuture.completedFuture(F.Either.Left(badRequest("A match has one seat")));
+			}
+			ActorRef region = MatchSharding.region(actorSystem);
+			return CompletableFuture.completedFuture(F.Either.Right(
+					ActorFlow.actorRef(out -> PlayerSocketActor.props(out, region, matchId, seat),
+							actorSystem, materializer)));
+		});
+	}
 
-		return WebSocket.Json.accept(
-				request -> ActorFlow.actorRef(this::createGameActor, actorSystem, materializer));
+	/**
+	 * Server metrics as JSON: the heap, the heap budget and the footprint of the match.
+	 * Needs a route, e.g. GET /metrics controllers.GameScreenController.metrics
+	 * @return
+	 */
+	public Result metrics() {
+		ObjectNode metrics = Json.newObject();
+		metrics.set("memory", MatchFootprint.toJson());
+		metrics.set("mailbox", GameMailbox.toJson());
+		metrics.set("admission", Admission.toJson());
+		ObjectNode actions = metrics.putObject("actions");
+		actions.put("pending", GameState.getInstance().getActions().getPending());
+		actions.put("dropped", GameState.getInstance().getActions().getDropped());
+		return ok(metrics);
+	}
+
+	/**
+	 * messages from the client to the game actor, and commands back
+	 * @param ticket: the admission of the connection
+	 * @return
+	 */
+	private Flow<JsonNode, JsonNode, ?> gameFlow(Admission.Ticket ticket) {
+		//acks are taken off the stream before the actor, which is busy waiting for them,
+		//and the clicks beyond the action queue bound are dropped there (the actor
+		//gets a notice in their place, see ActionQueue).
+		//A waiting connection has no match yet, its messages are dropped
+		return Flow.<JsonNode>create()
+				.filter(message -> ticket.isAdmitted())
+				.map(message -> {
+					GameState.getInstance().getAcks().onClientEvent(message);
+					return message;
+				})
+				.mapConcat(message -> {
+					JsonNode passed = GameState.getInstance().getActions().offer(message);
+					return passed == null ? List.<JsonNode>of() : List.of(passed);
+				})
+				.via(ActorFlow.actorRef(out -> AdmissionGate.props(out, ticket, createGameActor(out)),
+						actorSystem, materializer));
 	}
 
 	/**
@@ -55,6 +240,11 @@ public class GameScreenController extends Controller {
 	}
 	
 	public Props createGameActor(ActorRef out) {
-		return Props.create(GameActor.class, out); // calls the constructor for Game Actor
+		Props props = Props.create(GameActor.class, out); // calls the constructor for Game Actor
+		// actions before heartbeats, when the mailbox is configured (see GameMailbox)
+		if (GameMailbox.isConfigured(actorSystem.settings().config())) {
+			props = props.withMailbox(GameMailbox.configPath);
+		}
+		return props;
 	}
-}
\ No newline at end of file
+}
@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.JsonNode;
 
 import akka.actor.ActorRef;
 import structures.GameState;
+import utils.MatchPassivation;
 
 /**
  * In the user’s browser, the game is running in an infinite loop, where there is around a 1 second delay 
  * between each loop. Its during each loop that the UI acts on the commands that have been sent to it. A 
  * heartbeat event is fired at the end of each loop iteration. As with all events this is received by the Game 
  * Actor, which you can use to trigger game logic.
+ *
+ * The heartbeats tell the tab is still open, and passivate the match once it has been
+ * idle for too long (see MatchPassivation).
  * 
  * { 
  *   String messageType = “heartbeat”
@@ -22,7 +26,7 @@ public class Heartbeat implements EventProcessor{
 
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
-		
+		MatchPassivation.onHeartbeat();
 	}
 
 }
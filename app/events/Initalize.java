@@ -6,24 +6,28 @@ import akka.actor.ActorRef;
 import commands.BasicCommands;
 import demo.CheckMoveLogic;
 import demo.CommandDemo;
-import org.checkerframework.checker.units.qual.A;
-
 import structures.GameState;
 import structures.basic.*;
-import utils.BasicObjectBuilders;
-import utils.StaticConfFiles;
+import utils.MatchSnapshots;
+import utils.MatchTemplates;
 import utils.ToolBox;
 
-import javax.tools.Tool;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Indicates that both the core game loop in the browser is starting, meaning
- * that it is ready to recieve commands from the back-end.
+ * that it is ready to recieve commands from the back-end. The board size can
+ * optionally be set for the match, the default is 9x5; a size out of the range of
+ * Board.isValidSize is refused and the default is used. A reconnecting page can set
+ * resume to continue the match saved at the last turn boundary, if there is one.
  * 
  * { 
  *   messageType = “initalize”
+ *   width = <optional board width>
+ *   height = <optional board height>
+ *   resume = <optional, true to resume the saved match>
+ *   seed = <optional, seed of the match's random: the same seed deals the same cards>
  * }
  * 
  * @author Dr. Richard McCreadie
@@ -34,145 +38,96 @@ public class Initalize implements EventProcessor {
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
 
+		// resume the saved match, e.g. after the server has been restarted
+		if (message.get("resume") != null && message.get("resume").asBoolean()
+				&& MatchSnapshots.resume(out)) {
+			ToolBox.logNotification("Game resumed");
+			if (!GameState.getInstance().getCurrentPlayer().isHumanOrAI()) {
+				((AIPlayer) GameState.getInstance().getCurrentPlayer()).startUpAIMode();
+			}
+			return;
+		}
+
 		//clear the instance
 		GameState.getInstance().clearObservers();
 
-		// 1.generate tiles
-		for (int i = 0; i < 9; i++) {
-			for (int j = 0; j < 5; j++) {
-				Tile tile = BasicObjectBuilders.loadTile(i, j);
-				// register on gameState
-				GameState.getInstance().add(tile);
-				BasicCommands.drawTile(out, tile, 0);
+		// 1.take a prebuilt board, players, decks and avatars
+		int width = Board.DEFAULT_WIDTH;
+		int height = Board.DEFAULT_HEIGHT;
+		if (message.get("width") != null && message.get("height") != null) {
+			int askedWidth = message.get("width").asInt();
+			int askedHeight = message.get("height").asInt();
+			if (Board.isValidSize(askedWidth, askedHeight)) {
+				width = askedWidth;
+				height = askedHeight;
+			} else {
+				ToolBox.logNotification("Board size " + askedWidth + "x" + askedHeight + " is not supported, playing on "
+						+ width + "x" + height);
 			}
 		}
-
-		// 2.generate players
-		Player humanPlayer = new Player(20, 0);
-
-		Player AIPlayer = new AIPlayer(20, 0);
-
-		// 2.1 set player's health
-		BasicCommands.setPlayer1Health(out, humanPlayer);
-		BasicCommands.setPlayer2Health(out, AIPlayer);
-
-		// 3.set decks
-		String[] deck1Cards = {
-				StaticConfFiles.c_comodo_charger,
-				StaticConfFiles.c_hailstone_golem,
-				StaticConfFiles.c_pureblade_enforcer,
-				StaticConfFiles.c_azure_herald,
-				StaticConfFiles.c_silverguard_knight,
-				StaticConfFiles.c_azurite_lion,
-				StaticConfFiles.c_fire_spitter,
-				StaticConfFiles.c_ironcliff_guardian,
-				StaticConfFiles.c_truestrike,
-				StaticConfFiles.c_sundrop_elixir
-		};
-
-		String[] deck2Cards = {
-				StaticConfFiles.c_planar_scout,
-				StaticConfFiles.c_rock_pulveriser,
-				StaticConfFiles.c_pyromancer,
-				StaticConfFiles.c_bloodshard_golem,
-				StaticConfFiles.c_blaze_hound,
-				StaticConfFiles.c_windshrike,
-				StaticConfFiles.c_hailstone_golem,
-				StaticConfFiles.c_serpenti,
-				StaticConfFiles.c_staff_of_ykir,
-				StaticConfFiles.c_entropic_decay
-		};
-
-		for (int i = 0; i < 10; i++) {
-			Card card = BasicObjectBuilders.loadCard(deck1Cards[i],i,Card.class );
-
-			humanPlayer.setDeck(card);
+		MatchTemplates.Template template = MatchTemplates.take(width, height);
+		if (template == null) {
+			ToolBox.logNotification("The game could not be set up, please reload the page");
+			return;
 		}
+		Board board = template.board;
+		GameState.getInstance().setBoard(board);
 
-		for (int i = 0; i < 10; i++) {
-			Card card = BasicObjectBuilders.loadCard(deck2Cards[i],i+10,Card.class );
-
-			AIPlayer.setDeck(card);
+		// 1.1 register tiles and avatars on gameState
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				GameState.getInstance().add(board.getTile(i, j));
+			}
 		}
-
-		ToolBox.logNotification("Your turn");
-
-		Map<String,Object> parameters = new HashMap<>();
-
-		//4.creat avatar for human player
-		Unit humanAvatar = BasicObjectBuilders.loadUnit(
-				StaticConfFiles.humanAvatar,
-				ToolBox.humanAvatarId,Unit.class
-		);
-
-		// 4.1 set owner of humanAvatar
-		humanAvatar.setOwner(humanPlayer);
-
-		// 4.2 set attack/health of humanAvatar
-		humanAvatar.setAttack(2);
-		humanAvatar.setHealth(20);
-		humanAvatar.setMaxHealth(20);
-
-		// 4.3 add humanAvatar to the board
+		Unit humanAvatar = template.humanAvatar;
+		Unit AiAvatar = template.aiAvatar;
 		GameState.getInstance().add(humanAvatar);
-		humanAvatar.setOwner(humanPlayer);
-		parameters = new HashMap<>();
-		parameters.put("type","summon");
-		parameters.put("tilex",1);
-		parameters.put("tiley",2);
-		parameters.put("unit",humanAvatar);
-		GameState.getInstance().broadcastEvent(Tile.class,parameters);
-
-		//5. creat avatar for AI player
-		Unit AiAvatar = BasicObjectBuilders.loadUnit(
-				StaticConfFiles.aiAvatar,
-				ToolBox.AIAvatarID,Unit.class
-		);
 		GameState.getInstance().add(AiAvatar);
 
-		// 5.1 set owner of AI Avatar
-		AiAvatar.setOwner(AIPlayer);
+		// 2.render the board and the avatars in one frame
+		BasicCommands.batch(out, template.batch);
 
-		// 5.2 set attack/health of AI Avatar
-		AiAvatar.setAttack(2);
+		// 3.set player's health, through the avatars
+		Player humanPlayer = template.humanPlayer;
+		Player AIPlayer = template.aiPlayer;
+		humanAvatar.setHealth(20);
 		AiAvatar.setHealth(20);
-		AiAvatar.setMaxHealth(20);
 
-		// 4.3 add AI Avatar to the board
-		parameters = new HashMap<>();
-		parameters.put("type", "summon");
-		parameters.put("tilex", 7);
-		parameters.put("tiley", 2);
-		parameters.put("unit", AiAvatar);
-		GameState.getInstance().broadcastEvent(Tile.class, parameters);
+		// 4.shuffle decks with the match's random, the template keeps them in config order
+		if (message.get("seed") != null) {
+			GameState.getInstance().setSeed(message.get("seed").asLong());
+		}
+		humanPlayer.shuffleDeck(GameState.getInstance().getRandom());
+		AIPlayer.shuffleDeck(GameState.getInstance().getRandom());
 
-		// 6.set players
+		ToolBox.logNotification("Your turn");
+
+		// 5.set players
 		GameState.getInstance().addPlayers(humanPlayer, AIPlayer);
 
 		if (message.get("mode") != null && message.get("mode").asText().equals("test")){
 			//this is only available for test
 			//do noting
-			System.out.println("---Test mode activate---");
 		}
 		else {
-			// 7.human player draw 3 cards
+			// 6.human player draw 3 cards
 			GameState.getInstance().getCurrentPlayer().drawCard();
 			GameState.getInstance().getCurrentPlayer().drawCard();
 			GameState.getInstance().getCurrentPlayer().drawCard();
 
-			// 8. AI player draw 3 cards
+			// 7. AI player draw 3 cards
 			AIPlayer.drawCard();
 			AIPlayer.drawCard();
 			AIPlayer.drawCard();
 		}
 
 
-		// 9.set all unit READY
-		parameters =  new HashMap<>();
+		// 8.set all unit READY
+		Map<String,Object> parameters = new HashMap<>();
 		parameters.put("type","unitBeReady");
 		GameState.getInstance().broadcastEvent(Unit.class,parameters);
 
-		// 10.register all callback
+		// 9.register all callback
 		GameState.getInstance().registerCallbacks();
 
 
@@ -31,9 +31,7 @@ public class OtherClicked implements EventProcessor{
 			GameState.getInstance().getCurrentPlayer().clearSelected();
 
 			//clear valid tiles highlight
-			Map<String,Object> parameters = new HashMap<>();
-			parameters.put("type","textureReset");
-			GameState.getInstance().broadcastEvent(Tile.class,parameters);
+			GameState.getInstance().resetHighlights();
 
 			//reset game current state
 			GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
@@ -44,9 +42,7 @@ public class OtherClicked implements EventProcessor{
 			GameState.getInstance().setTileSelected(null);
 
 			//clear valid tiles highlight
-			Map<String,Object> parameters = new HashMap<>();
-			parameters.put("type","textureReset");
-			GameState.getInstance().broadcastEvent(Tile.class,parameters);
+			GameState.getInstance().resetHighlights();
 
 			//reset game current state
 			GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
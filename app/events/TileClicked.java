@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import akka.actor.ActorRef;
 import play.api.Play;
 import structures.GameState;
+import structures.basic.Board;
 import structures.basic.Card;
+import structures.basic.LegalActions;
 import structures.basic.Player;
 import structures.basic.Tile;
 import structures.basic.Unit;
@@ -44,6 +46,16 @@ public class TileClicked implements EventProcessor {
 			//get card selected
 			Card cardSelected = GameState.getInstance().getCardSelected();
 
+			//the tile must be one the card can be played on
+			Board board = GameState.getInstance().getBoard();
+			int handPosition = ToolBox.findObjectInArray(GameState.getInstance().getCurrentPlayer().getCardsOnHand(), cardSelected);
+			int type = cardSelected.isCreatureOrSpell() == 1 ? LegalActions.SUMMON : LegalActions.SPELL;
+			if (!board.contains(tilex,tiley)
+					|| !LegalActions.isLegal(type, handPosition, board.indexOf(tilex,tiley))){
+				ToolBox.logNotification("Select a valid tile!");
+				return;
+			}
+
 			//if it is a creature
 			if (cardSelected.isCreatureOrSpell() == 1){
 				cardSelected.creatureCardUsed(tilex,tiley);
@@ -68,6 +80,19 @@ public class TileClicked implements EventProcessor {
 		}
 
 		else if(GameState.getInstance().getCurrentState().equals(GameState.CurrentState.UNIT_SELECT)){
+			//a move (white tile) or an attack (red tile) must be one the unit can do;
+			//a normal tile selects another unit or cancels
+			Board board = GameState.getInstance().getBoard();
+			if (!board.contains(tilex,tiley)) return;
+			Tile tile = board.getTile(tilex,tiley);
+			Tile origin = GameState.getInstance().getTileSelected();
+			int type = tile.highlightedAction();
+			if (type != 0 && origin != null) {
+				if (!LegalActions.isLegal(type, board.indexOf(origin.getTilex(),origin.getTiley()), board.indexOf(tilex,tiley))){
+					ToolBox.logNotification("Select a valid tile!");
+					return;
+				}
+			}
 			parameters = new HashMap<>();
 			parameters.put("type", "operateUnit");
 			parameters.put("tilex",tilex);
@@ -13,6 +13,7 @@ import structures.GameState;
  * { 
  *   messageType = “unitStopped”
  *   id = <unit id>
+ *   ackId = <ack id of the command, optional>
  * }
  * 
  * @author Dr. Richard McCreadie
@@ -25,6 +26,8 @@ public class UnitStopped implements EventProcessor{
 		
 		int unitid = message.get("id").asInt();
 		
+		//the ack of the unit is completed from the websocket stream (GameScreenController),
+		//by the time this runs the action waiting for it has moved on
 	}
 
 }
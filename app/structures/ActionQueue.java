@@ -0,0 +1,135 @@
+package structures;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+import structures.basic.Board;
+import structures.basic.Player;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The clicks of the player waiting for the game. An action can take seconds on the
+ * animations, and the clicks made meanwhile would all be played afterwards against
+ * a board that has changed. So the queue is bounded:
+ *
+ * - a click that repeats a click still waiting is merged into it (dropped);
+ * - a click beyond maxPending waiting clicks is dropped;
+ * - when its turn comes, a click is checked against the current state (game
+ *   started, player's turn, tile on the board, card in the hand slot) and dropped
+ *   if it no longer applies.
+ *
+ * The player is told when input is dropped: the stream passes a notice (droppedType)
+ * to the GameActor in place of the click, and the actor shows it. Clicks are offered
+ * from the websocket stream, before the GameActor, and begun by the GameActor.
+ *
+ */
+public class ActionQueue {
+
+    //clicks which may wait at most
+    public static int maxPending = Integer.getInteger("match.maxPendingClicks", 3);
+
+    //the notice of a dropped click, { messagetype = droppedType, text = <reason> }
+    public static final String droppedType = "clickdropped";
+
+    private static final Set<String> clicks = Set.of("tileclicked", "cardclicked", "endturnclicked");
+
+    //the clicks waiting, a repeated click is merged so each is there once
+    private final Set<String> waiting = ConcurrentHashMap.newKeySet();
+    //a drop was already reported for the current burst of clicks
+    private volatile boolean dropReported = false;
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    /**
+     * Offer a message from the client, on the websocket stream
+     * @param message
+     * @return what to pass to the game: the message, the notice of a dropped click,
+     * or null for a click dropped without telling the player
+     */
+    public JsonNode offer(JsonNode message) {
+        if (!isClick(message)) return message;
+
+        String click = message.toString();
+        if (waiting.contains(click)) {
+            return drop(null);
+        }
+        if (waiting.size() >= maxPending) {
+            return drop("Too many clicks, wait for the action to finish");
+        }
+        waiting.add(click);
+        dropReported = false;
+        return message;
+    }
+
+    /**
+     * Start a click, on the GameActor
+     * @param message
+     * @return the reason it is dropped, null if it can be played
+     */
+    public String begin(JsonNode message) {
+        if (!isClick(message)) return null;
+
+        waiting.remove(message.toString());
+
+        String reason = validate(message);
+        if (reason != null) dropped.incrementAndGet();
+        return reason;
+    }
+
+    public int getPending() {
+        return waiting.size();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * check a click against the current state
+     * @return the reason it does not apply, null if it does
+     */
+    private static String validate(JsonNode message) {
+        GameState gameState = GameState.getInstance();
+        Board board = gameState.getBoard();
+        Player player = gameState.getCurrentPlayer();
+        if (board == null || player == null) return "The game has not started";
+        if (!player.isHumanOrAI()) return "It is not your turn";
+
+        String type = message.get("messagetype").asText();
+        if (type.equals("tileclicked")) {
+            if (!board.contains(message.path("tilex").asInt(-1), message.path("tiley").asInt(-1))) {
+                return "Select a tile on the board";
+            }
+        } else if (type.equals("cardclicked")) {
+            int handPosition = message.path("position").asInt(0) - 1;
+            if (handPosition < 0 || handPosition >= player.getCardsOnHand().length
+                    || player.getCardsOnHand()[handPosition] == null) {
+                return "There is no card there";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isClick(JsonNode message) {
+        JsonNode type = message.get("messagetype");
+        return type != null && clicks.contains(type.asText());
+    }
+
+    /**
+     * drop a click on the stream; the first drop of a burst is reported to the player
+     * @param reason: null for a merged click, which is not reported
+     * @return the notice for the GameActor, null if there is nothing to report
+     */
+    private JsonNode drop(String reason) {
+        dropped.incrementAndGet();
+        if (reason == null || dropReported) return null;
+        dropReported = true;
+
+        ObjectNode notice = Json.newObject();
+        notice.put("messagetype", droppedType);
+        notice.put("text", reason);
+        return notice;
+    }
+}
@@ -0,0 +1,144 @@
+package structures;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in tracer of the broadcasts run by one inbound action (one event from the
+ * front-end). Each broadcast is a node of a tree, named after the target class and
+ * the event type, e.g. "Tile:firstClickTile"; nested broadcasts are its children.
+ * For each path of the tree it records the number of broadcasts, the observers
+ * visited, the observers of the target class (matched) and the time spent.
+ *
+ * At the end of the action the paths are appended to traceFile in the folded stack
+ * format of flame graphs ("tileclicked;Tile:firstClickTile;Tile:searchUnitCanProvoke 42",
+ * the value is the self time in microseconds), and a summary with the worst
+ * amplification is logged (logger "structures.BroadcastTracer", info level).
+ *
+ * Turned on with -Dbroadcast.trace=true or by setting enabled. The game runs its
+ * actions one at a time, so the tracer is not thread safe.
+ *
+ */
+public class BroadcastTracer {
+
+    public static volatile boolean enabled = Boolean.getBoolean("broadcast.trace");
+    public static String traceFile = "traces/broadcast.folded";
+
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastTracer.class);
+
+    /**
+     * a running broadcast
+     */
+    public static class Node {
+        final Node parent;
+        final String path;
+        final int depth;
+        final long start = System.nanoTime();
+        long childNanos = 0;
+
+        Node(Node parent, String path, int depth) {
+            this.parent = parent;
+            this.path = path;
+            this.depth = depth;
+        }
+    }
+
+    //per path: calls, visited, matched, self nanos
+    private static final Map<String, long[]> paths = new LinkedHashMap<>();
+    private static String action = null;
+    private static Node current = null;
+    private static int maxDepth = 0;
+    private static long actionStart = 0;
+
+    /**
+     * start tracing an inbound action
+     * @param name: the message type
+     */
+    public static void beginAction(String name) {
+        if (!enabled) return;
+        action = name;
+        current = null;
+        maxDepth = 0;
+        paths.clear();
+        actionStart = System.nanoTime();
+    }
+
+    /**
+     * a broadcast starts
+     * @return the node to close with exit, null when not tracing
+     */
+    public static Node enter(Class target, Map<String, Object> parameters) {
+        if (!enabled || action == null) return null;
+        String frame = target.getSimpleName() + ":" + parameters.get("type");
+        String path = (current == null ? action : current.path) + ";" + frame;
+        Node node = new Node(current, path, current == null ? 1 : current.depth + 1);
+        maxDepth = Math.max(maxDepth, node.depth);
+        current = node;
+        return node;
+    }
+
+    /**
+     * a broadcast ends
+     * @param node: from enter
+     * @param visited: observers the broadcast went through
+     * @param matched: observers of the target class
+     */
+    public static void exit(Node node, int visited, int matched) {
+        if (node == null) return;
+        long nanos = System.nanoTime() - node.start;
+        long[] stats = paths.computeIfAbsent(node.path, k -> new long[4]);
+        stats[0]++;
+        stats[1] += visited;
+        stats[2] += matched;
+        stats[3] += nanos - node.childNanos;
+        if (node.parent != null) node.parent.childNanos += nanos;
+        current = node.parent;
+    }
+
+    /**
+     * end of the inbound action: write the folded stacks and the summary
+     */
+    public static void endAction() {
+        if (!enabled || action == null) return;
+        long total = System.nanoTime() - actionStart;
+        long broadcasts = 0, visited = 0, matched = 0;
+        String worst = null;
+        long worstVisited = -1;
+
+        try {
+            Path file = Paths.get(traceFile);
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (PrintWriter writer = new PrintWriter(new FileWriter(file.toFile(), true))) {
+                for (Map.Entry<String, long[]> entry : paths.entrySet()) {
+                    long[] stats = entry.getValue();
+                    writer.println(entry.getKey() + " " + Math.max(1, stats[3] / 1000));
+                    broadcasts += stats[0];
+                    visited += stats[1];
+                    matched += stats[2];
+                    if (stats[1] > worstVisited) {
+                        worstVisited = stats[1];
+                        worst = entry.getKey();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (broadcasts > 0 && logger.isInfoEnabled()) {
+            logger.info("{} {} broadcasts, depth {}, visited {}, matched {}, {} us, most visits: {} ({})",
+                    action, broadcasts, maxDepth, visited, matched, total / 1000, worst, worstVisited);
+        }
+        action = null;
+        current = null;
+    }
+}
@@ -0,0 +1,122 @@
+package structures;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import commands.CommandQueue;
+import utils.ToolBox;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acknowledgements from the front-end for movement and animation commands.
+ *
+ * A command that takes time on screen gets an ack id, and the game waits until the
+ * front-end reports (unitstopped) that the unit is done, instead of sleeping for a
+ * guessed time. If the ack does not come, the wait ends after a timeout: the expected
+ * animation time if the front-end has never acknowledged this kind of command, or a
+ * longer grace period if it has (a slow client then still gets to finish).
+ *
+ * The acks are delivered from the websocket stream, not through the GameActor, as
+ * the actor is busy running the action that waits for them.
+ *
+ */
+public class ClientAcks {
+
+    //kinds of command which can be acknowledged
+    public static final String MOVE = "move";
+    public static final String ANIMATION = "animation";
+
+    //grace period for a client known to acknowledge: factor of the expected time, and the minimum
+    private static final int graceFactor = 3;
+    private static final long minGraceMillis = 1000;
+
+    private final AtomicInteger nextAckId = new AtomicInteger(0);
+    private final Map<Integer, PendingAck> pendingById = new ConcurrentHashMap<>();
+    //kinds of command the client has acknowledged at least once
+    private final Set<String> acknowledgedKinds = ConcurrentHashMap.newKeySet();
+
+    private static class PendingAck {
+        final int ackId;
+        final int unitId;
+        final String kind;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingAck(int ackId, int unitId, String kind) {
+            this.ackId = ackId;
+            this.unitId = unitId;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Register an ack before the command is sent
+     * @param unitId: the unit the command is about
+     * @param kind: MOVE or ANIMATION
+     * @return the ack id, to send along with the command
+     */
+    public int expect(int unitId, String kind) {
+        PendingAck ack = new PendingAck(nextAckId.incrementAndGet(), unitId, kind);
+        pendingById.put(ack.ackId, ack);
+        return ack.ackId;
+    }
+
+    /**
+     * Wait for an ack
+     * @param ackId
+     * @param expectedMillis: the time the command should take on screen
+     */
+    public void await(int ackId, long expectedMillis) {
+        CommandQueue.flush();
+        PendingAck ack = pendingById.get(ackId);
+        if (ack == null) return;
+
+        try {
+            if (!ToolBox.pacing) return;
+
+            long timeout = expectedMillis;
+            if (acknowledgedKinds.contains(ack.kind)) {
+                timeout = Math.max(expectedMillis * graceFactor, minGraceMillis);
+            }
+            ack.done.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            //no ack, carry on
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pendingById.remove(ackId);
+        }
+    }
+
+    /**
+     * Complete the ack of a unit. Only the ack id echoed by the client completes a wait:
+     * a late unitstopped of an earlier command of the unit must not end a newer wait
+     * @param unitId
+     * @param ackId: the ack id echoed by the client
+     */
+    public void acknowledge(int unitId, int ackId) {
+        PendingAck ack = pendingById.get(ackId);
+        if (ack != null && ack.unitId == unitId) {
+            acknowledgedKinds.add(ack.kind);
+            ack.done.complete(null);
+        }
+    }
+
+    /**
+     * Look at an event as it arrives from the client and complete the matching ack
+     * @param message
+     */
+    public void onClientEvent(JsonNode message) {
+        JsonNode type = message.get("messagetype");
+        //without an ack id the wait runs to its timeout
+        if (type != null && type.asText().equals("unitstopped") && message.get("id") != null
+                && message.get("ackId") != null) {
+            acknowledge(message.get("id").asInt(), message.get("ackId").asInt());
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package structures;
 
 import akka.actor.ActorRef;
+import commands.CommandQueue;
+import commands.SpectatorHub;
 import structures.basic.Card;
 import structures.basic.Player;
 import structures.basic.Tile;
 import structures.basic.Unit;
 import structures.basic.AIPlayer;
+import structures.basic.Board;
+import utils.GameEvents;
+import utils.HighlightMap;
+import utils.MatchPassivation;
+import utils.MatchSnapshots;
 import utils.ToolBox;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -33,6 +45,14 @@ public class GameState extends Subject {
     private Map<String,Function<Integer,Boolean>> spellCastCallbacks = new HashMap<>();
     private int turnCount = 0;
     private Player[] playerContainers = new Player[2];
+    //acks from the front-end, read by the websocket stream as well
+    private volatile ClientAcks acks = new ClientAcks();
+    //clicks waiting for the game, offered by the websocket stream
+    private volatile ActionQueue actions = new ActionQueue();
+    //id of the match, for the JFR events
+    private String sessionId = UUID.randomUUID().toString();
+    //the match's random: deck shuffles and draws, the same seed deals the same cards
+    private Random random = new Random();
 
     /**
      * add players to human player
@@ -51,21 +71,64 @@ public class GameState extends Subject {
         }
     }
 
+    /**
+     * put the players of a saved match back
+     * @param humanPlayer
+     * @param AIPlayer
+     * @param currentPlayerIndex: 0 - human; 1 - AI
+     * @param turnCount
+     */
+    public void restorePlayers(Player humanPlayer, Player AIPlayer, int currentPlayerIndex, int turnCount){
+        playerContainers[0] = humanPlayer;
+        playerContainers[1] = AIPlayer;
+        this.currentPlayer = playerContainers[currentPlayerIndex];
+        this.turnCount = turnCount;
+        this.currentState = CurrentState.READY;
+    }
+
     public Player getCurrentPlayer() {
         return currentPlayer;
     }
 
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public ClientAcks getAcks() {
+        return acks;
+    }
+
+    public ActionQueue getActions() {
+        return actions;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * seed the match's random, e.g. to replay a match or in a test
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.random = new Random(seed);
+    }
+
 
 
 
 
     //switch player
     public void switchPlayer() {
+        GameEvents.SwitchPlayer event = new GameEvents.SwitchPlayer();
+        event.begin();
 
         // reset texture
-        Map<String,Object> parameters =  new HashMap<>();
-        parameters.put("type","textureReset");
-        GameState.getInstance().broadcastEvent(Tile.class,parameters);
+        resetHighlights();
 
         //draw a card
         this.currentPlayer.drawCard();
@@ -93,13 +156,28 @@ public class GameState extends Subject {
         this.currentPlayer.setMana((int) Math.ceil(turnCount/2.0));
 
         //let all unit be ready for this player
-        parameters =  new HashMap<>();
+        Map<String,Object> parameters =  new HashMap<>();
         parameters.put("type","unitBeReady");
         GameState.getInstance().broadcastEvent(Unit.class,parameters);
 
+        //save the match at the turn boundary, so it can be resumed
+        MatchSnapshots.save();
+
+        //the AI turn has its own events
+        if (event.shouldCommit()){
+            event.fill(observers.size());
+            event.toHuman = this.currentPlayer == playerContainers[0];
+            event.commit();
+        }
+
         if(this.currentPlayer.equals(playerContainers[1])){
             ((AIPlayer)playerContainers[1]).startUpAIMode();
         }
+        else {
+            //what the player can do this turn
+            HighlightMap.changed();
+            HighlightMap.push();
+        }
 
     }
 
@@ -147,6 +225,72 @@ public class GameState extends Subject {
     private Player currentPlayer;
 
 
+    // the board of this match
+    private Board board = null;
+
+    public void setBoard(Board board) { this.board = board; }
+    public Board getBoard() { return board; }
+
+    // tiles which are not NORMAL at the moment, so a reset only touches these tiles
+    private Set<Tile> highlightedTiles = new LinkedHashSet<>();
+    // tiles changed while the highlight is rebuilt, they are drawn once the rebuild ends
+    private Set<Tile> pendingRenderTiles = new LinkedHashSet<>();
+    private int highlightRebuildDepth = 0;
+
+    /**
+     * Called by a tile when its state changes, to keep the highlighted set up to date
+     * @param tile
+     */
+    public void highlightChanged(Tile tile){
+        if (tile.isHighlighted()){
+            highlightedTiles.add(tile);
+        }
+        else {
+            highlightedTiles.remove(tile);
+        }
+        if (isRebuildingHighlight()){
+            pendingRenderTiles.add(tile);
+        }
+    }
+
+    /**
+     * Set all highlighted tiles back to NORMAL
+     */
+    public void resetHighlights(){
+        for (Tile tile : new ArrayList<>(highlightedTiles)){
+            tile.resetTileState();
+        }
+    }
+
+    /**
+     * Start to rebuild the highlight. Tile states still change at once, but the front-end
+     * is only updated in endHighlightRebuild(), for the tiles whose state really changed.
+     * So a tile that is reset and highlighted again is not redrawn.
+     */
+    public void beginHighlightRebuild(){
+        highlightRebuildDepth ++;
+    }
+
+    /**
+     * Finish the highlight rebuild and draw the tiles that differ from the previous highlight
+     */
+    public void endHighlightRebuild(){
+        if (highlightRebuildDepth > 0 && --highlightRebuildDepth == 0){
+            for (Tile tile : pendingRenderTiles){
+                tile.renderTileState();
+            }
+            pendingRenderTiles.clear();
+        }
+    }
+
+    public boolean isRebuildingHighlight(){
+        return highlightRebuildDepth > 0;
+    }
+
+    public Set<Tile> getHighlightedTiles() {
+        return highlightedTiles;
+    }
+
     // selected tile
     private Tile tileSelected = null;
 
@@ -182,13 +326,60 @@ public class GameState extends Subject {
         this.currentState = CurrentState.READY;
         this.turnCount = 0;
         this.cardSelected = null;
+        this.board = null;
+        this.highlightedTiles = new LinkedHashSet<>();
+        this.pendingRenderTiles = new LinkedHashSet<>();
+        this.highlightRebuildDepth = 0;
+        this.acks = new ClientAcks();
+        this.actions = new ActionQueue();
+        this.sessionId = UUID.randomUUID().toString();
+        this.random = new Random();
+        CommandQueue.discard();
+        SpectatorHub.reset(out);
+        HighlightMap.reset();
+        MatchPassivation.reset();
         super.clearObservers();
     }
 
     @Override
     public void broadcastEvent(Class target, Map<String,Object> parameters){
-        for (Observer observer:observers){
-            observer.trigger(target,parameters);
+        BroadcastTracer.Node trace = BroadcastTracer.enter(target, parameters);
+        int visited = 0;
+        int matched = 0;
+
+        //an event for one tile position only needs to reach that tile
+        if (target == Tile.class && board != null
+                && parameters.get("tilex") != null && parameters.get("tiley") != null){
+            Tile tile = board.getTile(Integer.parseInt(String.valueOf(parameters.get("tilex"))),
+                    Integer.parseInt(String.valueOf(parameters.get("tiley"))));
+            try {
+                if (tile != null){
+                    visited = matched = 1;
+                    tile.trigger(target,parameters);
+                }
+            }
+            finally {
+                BroadcastTracer.exit(trace, visited, matched);
+            }
+            return;
+        }
+
+        //observers may be added or removed by the handlers, so walk the list by index
+        broadcastDepth ++;
+        try {
+            for (int i = 0; i < observers.size(); i++) {
+                Observer observer = observers.get(i);
+                //removed observer
+                if (observer != null){
+                    visited ++;
+                    if (observer.getClass() == target) matched ++;
+                    observer.trigger(target,parameters);
+                }
+            }
+        }
+        finally {
+            broadcastDepth --;
+            BroadcastTracer.exit(trace, visited, matched);
         }
 
     }
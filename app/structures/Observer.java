@@ -4,5 +4,8 @@ import java.util.Map;
 
 public abstract class Observer {
 
+    //position in the observer list of the subject, -1 if it is not registered
+    int subjectIndex = -1;
+
     public abstract void trigger(Class target, Map<String,Object> parameters);
 }
@@ -7,6 +7,11 @@ import java.util.Map;
 public abstract class Subject {
     protected List<Observer> observers = new ArrayList<Observer>();
 
+    //removed observers leave an empty slot, the list is compacted later
+    private int removedCount = 0;
+    //number of broadcasts running, the list must not be compacted while one runs
+    protected int broadcastDepth = 0;
+
 
     /**
      *
@@ -15,17 +20,34 @@ public abstract class Subject {
      * @param observer:  a observer
      */
     public void add(Observer observer) {
+        //already registered
+        if (observer.subjectIndex >= 0 && observer.subjectIndex < observers.size()
+                && observers.get(observer.subjectIndex) == observer) {
+            return;
+        }
+        observer.subjectIndex = observers.size();
         observers.add(observer);
     }
 
     /**
      *
-     * Remove a observe from subject
+     * Remove a observe from subject in O(1), its slot is set empty
      *
      * @param observer:  a observer
      */
     public void remove(Observer observer) {
-        observers.remove(observer);
+        int index = observer.subjectIndex;
+        if (index < 0 || index >= observers.size() || observers.get(index) != observer) {
+            return;
+        }
+        observers.set(index, null);
+        observer.subjectIndex = -1;
+        removedCount ++;
+
+        //compact when most of the slots are empty
+        if (removedCount > observers.size() / 2) {
+            compact();
+        }
     }
 
     /**
@@ -34,7 +56,31 @@ public abstract class Subject {
      *
      */
     public void clearObservers(){
+        for (Observer observer : observers) {
+            if (observer != null) observer.subjectIndex = -1;
+        }
         observers = new ArrayList<Observer>();
+        removedCount = 0;
+    }
+
+    /**
+     *
+     * Remove the empty slots left by removed observers
+     *
+     */
+    protected void compact(){
+        if (broadcastDepth > 0 || removedCount == 0) {
+            return;
+        }
+        List<Observer> compacted = new ArrayList<Observer>(observers.size() - removedCount);
+        for (Observer observer : observers) {
+            if (observer != null) {
+                observer.subjectIndex = compacted.size();
+                compacted.add(observer);
+            }
+        }
+        observers = compacted;
+        removedCount = 0;
     }
 
     /**
@@ -47,6 +93,7 @@ public abstract class Subject {
     public abstract void broadcastEvent(Class target,Map<String,Object> parameters);
 
     public List<Observer> getObservers() {
+        compact();
         return observers;
     }
 }
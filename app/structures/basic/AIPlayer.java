@@ -1,19 +1,13 @@
 package structures.basic;
 import commands.BasicCommands;
 import structures.GameState;
+import utils.GameEvents;
 import utils.ToolBox;
 
 import java.util.*;
 
 public class AIPlayer extends Player{
 
-    // record the units that the AI player can option
-    Set<Tile> optionalTiles = new HashSet<>();
-    // Record the Tile that the AI players can move or summon
-    Set<Tile> whiteTileGroup = new HashSet<>();
-    // Record the Tile that the AI players can attack
-    Set<Tile> redTileGroup = new HashSet<>();
-
     @Override
     public void cardSelected(int handPosition){
         Card cardSelected = this.cardsOnHand[handPosition];
@@ -24,155 +18,173 @@ public class AIPlayer extends Player{
         }
         //set backend
         GameState.getInstance().setCardSelected(cardSelected);
+        this.selectedHandPosition = handPosition;
         //highlight valid tiles
         showValidRange(cardSelected);
     }
 
+    //legal actions of the AI, by type and source; null when they have to be generated again
+    private int[] legalActions;
+    private Map<Integer, List<Integer>> actionsBySource = null;
+
     public AIPlayer(int health, int mana){
         super(health,mana);
     }
 
-    public void addToOptionalTile(Tile tile){ optionalTiles.add(tile);}
-
-    public void addToWhiteGroup(Tile tile){ whiteTileGroup.add(tile);}
-
-    public void addToRedGroup(Tile tile){ redTileGroup.add(tile);}
-
     /**
      * start AI player
      */
     public void startUpAIMode(){
         Map<String, Object> parameters;
+        Board board = GameState.getInstance().getBoard();
 
         // unit move and attack
-        // 1. find all of unit
-        parameters = new HashMap<>();
-        parameters.put("type","searchUnit");
-        parameters.put("range","all_friends");
-        GameState.getInstance().broadcastEvent(Tile.class, parameters);
-        try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
-
-        // 2. store optional unit
-        Iterator findUnit = optionalTiles.iterator();
-        while(findUnit.hasNext()){
-            Tile tileClicked = (Tile) findUnit.next();
-
-            // 3. first click
+        // 1. find all of the units which can do something
+        GameEvents.AIPhase phase = beginPhase();
+        actionsBySource = null;
+        Set<Integer> units = new LinkedHashSet<>();
+        for (int action : legalActions()) {
+            int type = LegalActions.type(action);
+            if (type == LegalActions.MOVE || type == LegalActions.ATTACK) {
+                units.add(LegalActions.source(action));
+            }
+        }
+        endPhase(phase, "unitSearch", units.size());
+
+        phase = beginPhase();
+        for (int source : units) {
+            Tile tileClicked = board.getTiles()[source];
+            // the unit may have died in an earlier fight
+            if (tileClicked.getUnitOnTile() == null || tileClicked.getUnitOnTile().getOwner() != this) continue;
+
+            // 2. first click
             if(GameState.getInstance().getCurrentState().equals(GameState.CurrentState.READY)){
                 parameters = new HashMap<>();
                 parameters.put("type","firstClickTile");
                 parameters.put("tilex",tileClicked.getTilex());
                 parameters.put("tiley",tileClicked.getTiley());
                 GameState.getInstance().broadcastEvent(Tile.class,parameters);
-                try {Thread.sleep(500);} catch (InterruptedException e) {e.printStackTrace();}
-
-                // get all of the tile that the AI can click
-                parameters = new HashMap<>();
-                parameters.put("type","AI_FindOperateTile");
-                GameState.getInstance().broadcastEvent(Tile.class,parameters);
-                try {Thread.sleep(500);} catch (InterruptedException e) {e.printStackTrace();}
+                // let the player see which unit is selected
+                ToolBox.pause(ToolBox.delay);
 
-                // 4. operate Unit
+                // 3. operate Unit
                 if(GameState.getInstance().getCurrentState().equals(GameState.CurrentState.UNIT_SELECT)){
-                    if(!redTileGroup.isEmpty()) {
-                        // 4.1 if the unit can attack, attack firstly
-                        Iterator searchAttack = this.redTileGroup.iterator();
-                        while (searchAttack.hasNext()) {
-                            // choose a tile
-                            Tile y = (Tile) searchAttack.next();
-                            parameters = new HashMap<>();
-                            parameters.put("type", "operateUnit");
-                            parameters.put("tilex", y.getTilex());
-                            parameters.put("tiley", y.getTiley());
-                            parameters.put("originTileSelected", tileClicked);
-                            GameState.getInstance().broadcastEvent(Tile.class, parameters);
-                            try {Thread.sleep(2000);} catch (InterruptedException e) {e.printStackTrace();}
-                            clearTileRecord();
-                            break;
-                        }
+                    // if the unit can attack, attack firstly, else only move
+                    int action = findAction(LegalActions.ATTACK, source);
+                    if (action < 0) action = findAction(LegalActions.MOVE, source);
+
+                    if (action >= 0) {
+                        Tile y = board.getTiles()[LegalActions.target(action)];
+                        parameters = new HashMap<>();
+                        parameters.put("type", "operateUnit");
+                        parameters.put("tilex", y.getTilex());
+                        parameters.put("tiley", y.getTiley());
+                        parameters.put("originTileSelected", tileClicked);
+                        // waits for its own animations
+                        GameState.getInstance().broadcastEvent(Tile.class, parameters);
+                        // the board has changed
+                        actionsBySource = null;
                     }
-                    else{
-                        // 4.2 only move
-                        Iterator searchMove = this.whiteTileGroup.iterator();
-                        while(searchMove.hasNext()){
-                            Tile y = (Tile) searchMove.next();
-                            parameters = new HashMap<>();
-                            parameters.put("type","operateUnit");
-                            parameters.put("tilex",y.getTilex());
-                            parameters.put("tiley",y.getTiley());
-                            parameters.put("originTileSelected", tileClicked);
-                            GameState.getInstance().broadcastEvent(Tile.class,parameters);
-                            try {Thread.sleep(2000);} catch (InterruptedException e) {e.printStackTrace();}
-                            clearTileRecord();
-                            break;
-                        }
+                    else {
+                        // nothing to do after all, unselect
+                        GameState.getInstance().setTileSelected(null);
+                        GameState.getInstance().resetHighlights();
+                        GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
                     }
                 }
             }
         }
-        clearTileRecord();
-        this.optionalTiles.clear();
-        try {Thread.sleep(50);} catch (InterruptedException e) {e.printStackTrace();}
+
+        endPhase(phase, "unitOperation", units.size());
 
         // AI plays a card
-        AIplay_a_card:
+        phase = beginPhase();
+        actionsBySource = null;
+        int played = 0;
         for(int i = 0; i < 6; i++){
-            if(this.cardsOnHand[i] != null){
-                // 1. chose a card
-                if(this.cardsOnHand[i].getManacost() <= this.mana){
-                    this.cardSelected(i);
+            if(this.cardsOnHand[i] == null || this.cardsOnHand[i].getManacost() > this.mana){
+                continue;
+            }
+            Card cardSelected = cardsOnHand[i];
+
+            // 1. find a tile for the card
+            int action = findAction(cardSelected.isCreatureOrSpell() == 1 ? LegalActions.SUMMON : LegalActions.SPELL, i);
+            if (action < 0) continue;
+            Tile y = board.getTiles()[LegalActions.target(action)];
+
+            // 2. chose the card
+            this.cardSelected(i);
+            // let the player see the range of the card
+            ToolBox.pause(ToolBox.delay);
+
+            // 3. play it
+            if(GameState.getInstance().getCurrentState().equals(GameState.CurrentState.CARD_SELECT)){
+                //if it is a creature
+                if (cardSelected.isCreatureOrSpell() == 1){
+
+                    ToolBox.logNotification(ToolBox.currentPlayerName() + " play a card: " + cardSelected.getCardname());
+
+                    cardSelected.creatureCardUsed(y.tilex,y.tiley);}
+
+                //if it is a spell
+                else {
+                    parameters = new HashMap<>();
+                    parameters.put("type", "spell");
+                    parameters.put("tilex",y.getTilex());
+                    parameters.put("tiley",y.getTiley());
+                    GameState.getInstance().broadcastEvent(Tile.class,parameters);
                 }
-                else {continue AIplay_a_card; }
-
-                // 2. find the placeable tile
-                parameters = new HashMap<>();
-                parameters.put("type","AI_FindOperateTile");
-                GameState.getInstance().broadcastEvent(Tile.class,parameters);
-                try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
-
-                Iterator searchSummon = whiteTileGroup.iterator();
-                while(searchSummon.hasNext()){
-                    // select a tile
-                    Tile y = (Tile) searchSummon.next();
-                    if(GameState.getInstance().getCurrentState().equals(GameState.CurrentState.CARD_SELECT)){
-                        parameters = new HashMap<>();
-
-                        //get card selected
-                        Card cardSelected = cardsOnHand[i];
-
-                        //if it is a creature
-                        if (cardSelected.isCreatureOrSpell() == 1){
-
-                            ToolBox.logNotification(ToolBox.currentPlayerName() + " play a card: " + cardSelected.getCardname());
+                // the board, the hand and the mana have changed
+                actionsBySource = null;
+                played ++;
+            }
+        }
+        endPhase(phase, "cardPlay", played);
 
-                            cardSelected.creatureCardUsed(y.tilex,y.tiley);}
+        GameState.getInstance().switchPlayer();
+    }
 
-                        //if it is a spell
-                        else {
-                            parameters.put("type", "spell");
-                            parameters.put("tilex",y.getTilex());
-                            parameters.put("tiley",y.getTiley());
-                            GameState.getInstance().broadcastEvent(Tile.class,parameters);
+    /**
+     * JFR event of a phase of the AI turn
+     */
+    private static GameEvents.AIPhase beginPhase(){
+        GameEvents.AIPhase phase = new GameEvents.AIPhase();
+        phase.begin();
+        return phase;
+    }
 
-                        }
-                        this.clearTileRecord();
-                        try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
-                        break;
-                    }
-                }
-            }
+    private static void endPhase(GameEvents.AIPhase phase, String name, int items){
+        if (phase.shouldCommit()){
+            phase.fill(items);
+            phase.phase = name;
+            phase.commit();
         }
-        this.clearTileRecord();
+    }
 
-        GameState.getInstance().switchPlayer();
+    /**
+     * the first legal action of a type from a unit (board index) or a card (hand position)
+     * @return the action, -1 if there is none
+     */
+    private int findAction(int type, int source){
+        legalActions();
+        List<Integer> actions = actionsBySource.get(LegalActions.encode(type, source, 0));
+        return actions == null ? -1 : actions.get(0);
     }
 
     /**
-     * refresh the tile state
+     * the legal actions, generated again only when an action of the AI has changed the
+     * board since the last time, and indexed by type and source
      */
-    private void clearTileRecord(){
-        this.whiteTileGroup.clear();
-        this.redTileGroup.clear();
+    private int[] legalActions(){
+        if (actionsBySource == null) {
+            legalActions = LegalActions.generate();
+            actionsBySource = new HashMap<>();
+            for (int action : legalActions) {
+                actionsBySource.computeIfAbsent(LegalActions.encode(LegalActions.type(action), LegalActions.source(action), 0),
+                        k -> new ArrayList<>()).add(action);
+            }
+        }
+        return legalActions;
     }
 
     /**
@@ -0,0 +1,99 @@
+package structures.basic;
+
+/**
+ * The game board. Tiles are kept in a flat, row-major array so that a tile can
+ * be found from its grid position without searching. The width and height can be
+ * set per match; positions outside of the board are simply reported as missing,
+ * which makes neighbour queries on the edges safe.
+ *
+ */
+public class Board {
+
+	public static final int DEFAULT_WIDTH = 9;
+	public static final int DEFAULT_HEIGHT = 5;
+
+	// the avatars stand on x = 1 and x = width - 2, so a board is at least 4 wide
+	public static final int MIN_WIDTH = 4;
+	public static final int MIN_HEIGHT = 3;
+	public static final int MAX_WIDTH = 36;
+	public static final int MAX_HEIGHT = 36;
+
+	// offsets of the 8 tiles around a tile
+	public static final int[] ADJACENT_X = new int[]{1, 1, 0, -1, -1, -1, 0, 1};
+	public static final int[] ADJACENT_Y = new int[]{0, 1, 1, 1, 0, -1, -1, -1};
+
+	// offsets of the 4 tiles next to a tile (up, right, left, down)
+	public static final int[] CARDINAL_X = new int[]{ 0, 1,-1, 0};
+	public static final int[] CARDINAL_Y = new int[]{ 1, 0, 0,-1};
+
+	private final int width;
+	private final int height;
+	private final Tile[] tiles;
+
+	public Board(int width, int height) {
+		if (!isValidSize(width, height)) {
+			throw new IllegalArgumentException("Invalid board size " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.tiles = new Tile[width * height];
+	}
+
+	/**
+	 * check whether a match can be played on a board of this size
+	 * @param width
+	 * @param height
+	 * @return boolean: true - between MIN_WIDTH x MIN_HEIGHT and MAX_WIDTH x MAX_HEIGHT
+	 */
+	public static boolean isValidSize(int width, int height) {
+		return width >= MIN_WIDTH && width <= MAX_WIDTH && height >= MIN_HEIGHT && height <= MAX_HEIGHT;
+	}
+
+	/**
+	 * check whether a grid position is on the board
+	 * @param tilex
+	 * @param tiley
+	 * @return boolean: true - on the board
+	 */
+	public boolean contains(int tilex, int tiley) {
+		return tilex >= 0 && tiley >= 0 && tilex < width && tiley < height;
+	}
+
+	/**
+	 * index of a grid position in the flat tile array
+	 */
+	public int indexOf(int tilex, int tiley) {
+		return tiley * width + tilex;
+	}
+
+	/**
+	 * get the tile at a grid position
+	 * @return the tile, or null if the position is not on the board
+	 */
+	public Tile getTile(int tilex, int tiley) {
+		if (!contains(tilex, tiley)) return null;
+		return tiles[indexOf(tilex, tiley)];
+	}
+
+	/**
+	 * put a tile on the board at its own grid position
+	 * @param tile
+	 */
+	public void setTile(Tile tile) {
+		if (!contains(tile.getTilex(), tile.getTiley())) {
+			throw new IllegalArgumentException("Tile (" + tile.getTilex() + "," + tile.getTiley() + ") is not on the board");
+		}
+		tiles[indexOf(tile.getTilex(), tile.getTiley())] = tile;
+	}
+
+	/**
+	 * getter and setter
+	 */
+	public int getWidth() { return width; }
+
+	public int getHeight() { return height; }
+
+	public int size() { return tiles.length; }
+
+	public Tile[] getTiles() { return tiles; }
+}
@@ -3,6 +3,7 @@ package structures.basic;
 
 import structures.GameState;
 import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
 
 import java.util.*;
 import java.util.function.BiFunction;
@@ -38,16 +39,8 @@ public class Card {
 
 	public Unit cardToUnit(){
 
-		String unit_path = this.cardname.split(" ")[0].toLowerCase(Locale.ROOT);
-
-		if (this.cardname.split(" ").length > 1 && this.cardname.split(" ")[1].toLowerCase(Locale.ROOT) != ""){
-			unit_path += "_" + this.cardname.split(" ")[1].toLowerCase(Locale.ROOT);
-		}
-
-		unit_path = "conf/gameconfs/units/" + unit_path + ".json";
-
 		//create unit
-		Unit unit = BasicObjectBuilders.loadUnit(unit_path,id,Unit.class);
+		Unit unit = BasicObjectBuilders.loadUnit(StaticConfFiles.unitConf(this.cardname),id,Unit.class);
 
 		//register unit
 		GameState.getInstance().add(unit);
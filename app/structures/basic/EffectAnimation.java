@@ -2,6 +2,8 @@ package structures.basic;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * This class is the base for an effect that can be played on a game
  * tile. It has a list of animation frames (animationTextures), and
@@ -44,6 +46,18 @@ public class EffectAnimation {
 	public void setFps(int fps) {
 		this.fps = fps;
 	}
+
+	/**
+	 * Time the front-end needs to play this effect
+	 * @return milliseconds
+	 */
+	@JsonIgnore
+	public long getDurationMillis() {
+		if (animationTextures == null || fps <= 0) {
+			return 0;
+		}
+		return (long) Math.ceil(animationTextures.size() * 1000.0 / fps);
+	}
 	
 	
 }
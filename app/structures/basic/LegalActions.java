@@ -0,0 +1,247 @@
+package structures.basic;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import structures.GameState;
+
+/**
+ * Every legal action of the current player, worked out in one pass over the board.
+ *
+ * An action is packed in an int: the type in the top 4 bits, then the source and the
+ * target in 14 bits each. For a move or an attack the source is the board index of
+ * the unit's tile, for a summon or a spell it is the hand position (0 ~ 5). The target
+ * is always the board index of a tile (Board.indexOf). The actions come sorted, so a
+ * click can be checked with a binary search.
+ *
+ * The rules are the ones of the highlights: a unit that is READY moves up to 2 tiles
+ * in the 4 directions over empty tiles (anywhere if flying) and attacks the enemies
+ * next to where it can stand (anywhere if ranged); a unit that HAS_MOVED only attacks
+ * its neighbours; a unit next to an enemy with provoke can only attack that enemy.
+ *
+ */
+public class LegalActions {
+
+	public static final int MOVE = 1;
+	public static final int ATTACK = 2;
+	public static final int SUMMON = 3;
+	public static final int SPELL = 4;
+
+	private static final int indexBits = 14;
+	private static final int indexMask = (1 << indexBits) - 1;
+
+	// what stands on a tile
+	private static final byte EMPTY = 0;
+	private static final byte OWN = 1;
+	private static final byte ENEMY = 2;
+
+	public static int encode(int type, int source, int target) {
+		return (type << (2 * indexBits)) | ((source & indexMask) << indexBits) | (target & indexMask);
+	}
+
+	public static int type(int action) { return action >>> (2 * indexBits); }
+
+	public static int source(int action) { return (action >>> indexBits) & indexMask; }
+
+	public static int target(int action) { return action & indexMask; }
+
+	/**
+	 * the actions of the current player
+	 * @return sorted actions, empty if there is no board
+	 */
+	public static int[] generate() {
+		GameState gameState = GameState.getInstance();
+		Board board = gameState.getBoard();
+		Player player = gameState.getCurrentPlayer();
+		if (board == null || player == null) return new int[0];
+
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int size = board.size();
+		Tile[] tiles = board.getTiles();
+
+		// one pass: who stands where
+		byte[] side = new byte[size];
+		boolean[] provoker = new boolean[size];
+		int ownAvatar = -1;
+		for (int i = 0; i < size; i++) {
+			Unit unit = tiles[i] == null ? null : tiles[i].getUnitOnTile();
+			if (unit == null) continue;
+			if (unit.getOwner() == player) {
+				side[i] = OWN;
+				if (unit.getId() >= 99) ownAvatar = i;
+			} else {
+				side[i] = ENEMY;
+				provoker[i] = unit.getCanProvoke();
+			}
+		}
+
+		Actions actions = new Actions();
+		boolean[] reach = new boolean[size];
+
+		// units
+		for (int i = 0; i < size; i++) {
+			if (side[i] != OWN) continue;
+			Unit unit = tiles[i].getUnitOnTile();
+			Unit.UnitState state = unit.getCurrentState();
+			if (state != Unit.UnitState.READY && state != Unit.UnitState.HAS_MOVED) continue;
+			int x = i % width;
+			int y = i / width;
+
+			// provoked: only the provoking neighbours
+			boolean provoked = false;
+			for (int k = 0; k < Board.ADJACENT_X.length; k++) {
+				int n = neighbour(x, y, Board.ADJACENT_X[k], Board.ADJACENT_Y[k], width, height);
+				if (n >= 0 && side[n] == ENEMY && provoker[n]) {
+					provoked = true;
+					actions.add(encode(ATTACK, i, n));
+				}
+			}
+			if (provoked) continue;
+
+			if (state == Unit.UnitState.HAS_MOVED) {
+				addAdjacentAttacks(actions, i, x, y, side, width, height, null);
+				continue;
+			}
+
+			// READY: moves
+			Arrays.fill(reach, false);
+			if (unit.flying) {
+				for (int t = 0; t < size; t++) {
+					if (side[t] == EMPTY) reach[t] = true;
+				}
+			} else {
+				for (int k = 0; k < Board.CARDINAL_X.length; k++) {
+					int first = neighbour(x, y, Board.CARDINAL_X[k], Board.CARDINAL_Y[k], width, height);
+					if (first < 0 || side[first] != EMPTY) continue;
+					reach[first] = true;
+					for (int l = 0; l < Board.CARDINAL_X.length; l++) {
+						int second = neighbour(first % width, first / width, Board.CARDINAL_X[l], Board.CARDINAL_Y[l], width, height);
+						if (second >= 0 && side[second] == EMPTY) reach[second] = true;
+					}
+				}
+			}
+
+			// READY: attacks, from where it stands or from where it can move to
+			boolean[] attacked = new boolean[size];
+			if (unit.rangedAttack) {
+				for (int t = 0; t < size; t++) {
+					if (side[t] == ENEMY) attacked[t] = true;
+				}
+			}
+			if (!unit.flying) {
+				addAdjacentAttacks(null, i, x, y, side, width, height, attacked);
+			}
+			for (int t = 0; t < size; t++) {
+				if (!reach[t]) continue;
+				actions.add(encode(MOVE, i, t));
+				addAdjacentAttacks(null, i, t % width, t / width, side, width, height, attacked);
+			}
+			for (int t = 0; t < size; t++) {
+				if (attacked[t]) actions.add(encode(ATTACK, i, t));
+			}
+		}
+
+		// cards
+		Card[] hand = player.getCardsOnHand();
+		for (int h = 0; h < hand.length; h++) {
+			Card card = hand[h];
+			if (card == null || card.getManacost() > player.getMana()) continue;
+
+			if (card.isCreatureOrSpell() == -1) {
+				addSpellTargets(actions, h, card, tiles, side, ownAvatar);
+			} else {
+				boolean airdrop = card.getBigCard().getRulesTextRows().length > 0
+						&& card.getBigCard().getRulesTextRows()[0].toLowerCase(Locale.ROOT).contains("airdrop");
+				for (int t = 0; t < size; t++) {
+					if (side[t] != EMPTY) continue;
+					if (airdrop || nextTo(t % width, t / width, OWN, side, width, height)) {
+						actions.add(encode(SUMMON, h, t));
+					}
+				}
+			}
+		}
+
+		int[] result = actions.toArray();
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * @param actions: sorted actions from generate()
+	 * @param action
+	 * @return true if the action is one of them
+	 */
+	public static boolean contains(int[] actions, int action) {
+		return Arrays.binarySearch(actions, action) >= 0;
+	}
+
+	/**
+	 * check an action against the current state
+	 */
+	public static boolean isLegal(int type, int source, int target) {
+		return contains(generate(), encode(type, source, target));
+	}
+
+	private static void addAdjacentAttacks(Actions actions, int source, int x, int y, byte[] side,
+										   int width, int height, boolean[] attacked) {
+		for (int k = 0; k < Board.ADJACENT_X.length; k++) {
+			int n = neighbour(x, y, Board.ADJACENT_X[k], Board.ADJACENT_Y[k], width, height);
+			if (n < 0 || side[n] != ENEMY) continue;
+			if (attacked != null) attacked[n] = true;
+			else actions.add(encode(ATTACK, source, n));
+		}
+	}
+
+	private static void addSpellTargets(Actions actions, int handPosition, Card card, Tile[] tiles,
+										byte[] side, int ownAvatar) {
+		String rule = card.getBigCard().getRulesTextRows()[0].toLowerCase(Locale.ROOT);
+		if (rule.contains("unit")) {
+			for (int t = 0; t < tiles.length; t++) {
+				if (side[t] == EMPTY) continue;
+				boolean target;
+				if (rule.contains("enemy")) target = side[t] == ENEMY;
+				else if (rule.contains("non-avatar")) target = tiles[t].getUnitOnTile().getId() < 99;
+				else target = true;
+				if (target) actions.add(encode(SPELL, handPosition, t));
+			}
+		} else if (rule.contains("your avatar") && ownAvatar >= 0) {
+			actions.add(encode(SPELL, handPosition, ownAvatar));
+		}
+	}
+
+	private static boolean nextTo(int x, int y, byte who, byte[] side, int width, int height) {
+		for (int k = 0; k < Board.ADJACENT_X.length; k++) {
+			int n = neighbour(x, y, Board.ADJACENT_X[k], Board.ADJACENT_Y[k], width, height);
+			if (n >= 0 && side[n] == who) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * board index of a neighbour, -1 if it is off the board
+	 */
+	private static int neighbour(int x, int y, int dx, int dy, int width, int height) {
+		int nx = x + dx;
+		int ny = y + dy;
+		if (nx < 0 || ny < 0 || nx >= width || ny >= height) return -1;
+		return ny * width + nx;
+	}
+
+	/**
+	 * growable int array
+	 */
+	private static class Actions {
+		private int[] items = new int[64];
+		private int count = 0;
+
+		void add(int action) {
+			if (count == items.length) items = Arrays.copyOf(items, count * 2);
+			items[count++] = action;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(items, count);
+		}
+	}
+}
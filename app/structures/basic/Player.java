@@ -2,6 +2,9 @@ package structures.basic;
 
 import commands.BasicCommands;
 import structures.GameState;
+import utils.AnimationTimings;
+import utils.GameEvents;
+import utils.HighlightMap;
 import utils.ToolBox;
 import java.util.*;
 
@@ -18,6 +21,8 @@ public class Player {
 	int mana;
 	private List<Card> deck = new ArrayList<>();
 	protected Card[] cardsOnHand  = new Card[6];
+	//hand slot of the card selected, -1 if no card is selected
+	protected int selectedHandPosition = -1;
 
 	public Player() {
 		super();
@@ -44,6 +49,24 @@ public class Player {
 	 * drawCard From deck
 	 */
 	public void drawCard(){
+		GameEvents.DrawCard event = new GameEvents.DrawCard();
+		event.begin();
+		try {
+			drawCardFromDeck();
+		}
+		finally {
+			if (event.shouldCommit()){
+				event.fill(deck.size());
+				event.human = this.isHumanOrAI();
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * move a random card of the deck to the first free hand slot
+	 */
+	private void drawCardFromDeck(){
 		//WIN/LOSE condition one
 		if (deck.size() == 0) {
 			if (this == GameState.getInstance().getPlayerContainers()[0]){
@@ -55,24 +78,20 @@ public class Player {
 			return;
 		}
 
-		int randomInt = new Random().nextInt(deck.size());
-		Card card = this.deck.get(randomInt);
-		this.deck.remove(card);
+		Card card = takeRandomCardFromDeck();
 
 		int i;
 		//find a blank space
 		for (i = 0; i < 6; i++) {
 			if(this.cardsOnHand[i] == null){
 				this.cardsOnHand[i] = card;
+				HighlightMap.changed();
 				if(this.isHumanOrAI()){
 					BasicCommands.drawCard(GameState.getInstance().getOut(),
 							card,i +1,0);
+					//wait for the frontend
+					ToolBox.pause(AnimationTimings.frame());
 				}
-				try {
-					Thread.sleep(ToolBox.delay);
-				}
-				//wait for the frontend
-				catch (InterruptedException e){e.printStackTrace();}
 				break;
 			}
 		}
@@ -81,6 +100,32 @@ public class Player {
 		}
 	}
 
+	/**
+	 * take a random card out of the deck in O(1): the last card is swapped
+	 * into the slot of the drawn one, so no shifting or equality search is needed
+	 * @return the card drawn
+	 */
+	private Card takeRandomCardFromDeck(){
+		int last = deck.size() - 1;
+		int randomInt = GameState.getInstance().getRandom().nextInt(deck.size());
+		Card card = deck.get(randomInt);
+		deck.set(randomInt, deck.get(last));
+		deck.remove(last);
+		return card;
+	}
+
+	/**
+	 * find the hand slot of a card, using the tracked selected slot first
+	 * @param card - card on hand
+	 * @return int: 0 ~ 5, -1 if the card is not on hand
+	 */
+	protected int handPositionOf(Card card){
+		if (selectedHandPosition >= 0 && cardsOnHand[selectedHandPosition] == card){
+			return selectedHandPosition;
+		}
+		return ToolBox.findObjectInArray(cardsOnHand,card);
+	}
+
 	/**
 	 * clear card from hand
 	 * @param card - the selected card
@@ -89,27 +134,25 @@ public class Player {
 		//update the mana
 		this.setMana(mana-card.getManacost());
 
+		//the slot of the selected card, before clearSelected forgets it
+		int index = handPositionOf(card);
+
 		//clear highlight
 		clearSelected();
 
-		int index = ToolBox.findObjectInArray(this.cardsOnHand,card);
-
 		if(this.isHumanOrAI()){
 			//remove from hand(backend and frontend)
 			BasicCommands.deleteCard(GameState.getInstance().getOut(),index+1);
 		}
-		try {
-			Thread.sleep(500);
-		}catch (InterruptedException e){e.printStackTrace();}
+		ToolBox.pause(AnimationTimings.frame());
 		this.cardsOnHand[index] = null;
+		this.selectedHandPosition = -1;
 
 		//remove form gameState
 		GameState.getInstance().setCardSelected(null);
 
 		//clear the range
-		Map<String,Object> parameters = new HashMap<>();
-		parameters.put("type","textureReset");
-		GameState.getInstance().broadcastEvent(Tile.class,parameters);
+		GameState.getInstance().resetHighlights();
 	}
 
 	/**
@@ -134,6 +177,7 @@ public class Player {
 
 			//set backend
 			GameState.getInstance().setCardSelected(cardSelected);
+			this.selectedHandPosition = handPosition;
 
 			//render frontend
 			if(this.isHumanOrAI()){
@@ -168,10 +212,11 @@ public class Player {
 		if (GameState.getInstance().getCurrentState().equals(GameState.CurrentState.CARD_SELECT)){
 			if(this.isHumanOrAI()){
 				BasicCommands.drawCard(GameState.getInstance().getOut(),GameState.getInstance().getCardSelected(),
-						ToolBox.findObjectInArray(cardsOnHand,GameState.getInstance().getCardSelected()) + 1
+						handPositionOf(GameState.getInstance().getCardSelected()) + 1
 						,0);
 			}
 			//clear backend
+			this.selectedHandPosition = -1;
 			GameState.getInstance().setCardSelected(null);
 			GameState.getInstance().setTileSelected(null);
 		}
@@ -182,73 +227,41 @@ public class Player {
 	 * @param cardSelected
 	 */
 	protected void showValidRange(Card cardSelected){
-		Map<String,Object> parameters = new HashMap<>();
-
-		parameters.put("type","textureReset");
-		GameState.getInstance().broadcastEvent(Tile.class,parameters);
-
-		//waiting for completion of reset
-		try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}
-
-		//Calculate the target range of card
-		//if it is a spell
-		if (cardSelected.isCreatureOrSpell() == -1) {
-			String rule = cardSelected.getBigCard().getRulesTextRows()[0];
-			parameters = new HashMap<>();
-			parameters.put("type", "searchUnit");
-			//if the target is a unit
-			if (rule.toLowerCase(Locale.ROOT).contains("unit")) {
-				//find all enemy Unit
-				if (rule.toLowerCase(Locale.ROOT).contains("enemy")) {
-					parameters.put("range", "enemy");
-
-					//ask the tileS to give the list of enemy units and highlight them.
-					GameState.getInstance().broadcastEvent(Tile.class, parameters);
-				}
-				//find all non-avatar Unit
-				else if (rule.toLowerCase(Locale.ROOT).contains("non-avatar")) {
-					parameters.put("range", "non_avatar");
-					//ask the tileS to give the list of all units and highlight them.
-					GameState.getInstance().broadcastEvent(Tile.class, parameters);
-				}
-				//find all Unit
-				else {
-					parameters.put("range", "all");
-					//ask the tileS to give the list of all units and highlight them.
-					GameState.getInstance().broadcastEvent(Tile.class, parameters);
-				}
-			}
-			//if the target is a avatar
-			else if (rule.toLowerCase(Locale.ROOT).contains("avatar")) {
-				//find current avatar
-				if (rule.toLowerCase(Locale.ROOT).contains("your avatar")) {
-					{
-						parameters.put("range", "your_avatar");
-						//ask the tile to give the list of enemy units
-						GameState.getInstance().broadcastEvent(Tile.class, parameters);
-					}
-				}
-			}
+		//only the tiles differ from the previous highlight are redrawn
+		GameState.getInstance().beginHighlightRebuild();
+		try {
+			GameState.getInstance().resetHighlights();
+			highlightValidRange(cardSelected);
 		}
-		//if it is a creature
-		else {
-			parameters = new HashMap<>();
-			boolean airdrop = false;
-			
-			if(cardSelected.getBigCard().getRulesTextRows().length > 0) {
-				String rule = cardSelected.getBigCard().getRulesTextRows()[0];
-				if(rule.toLowerCase(Locale.ROOT).contains("airdrop")) {
-					airdrop = true;
-					parameters.put("type", "airdropSummonRangeHighlight");}
+		finally {
+			GameState.getInstance().endHighlightRebuild();
+		}
+	}
+
+	/**
+	 * highlight the tiles a card could be placed on (LegalActions)
+	 * @param cardSelected
+	 */
+	private void highlightValidRange(Card cardSelected){
+		Board board = GameState.getInstance().getBoard();
+		int handPosition = handPositionOf(cardSelected);
+		for (int action : LegalActions.generate()) {
+			int type = LegalActions.type(action);
+			if ((type == LegalActions.SUMMON || type == LegalActions.SPELL)
+					&& LegalActions.source(action) == handPosition) {
+				board.getTiles()[LegalActions.target(action)].setTileState(Tile.TileState.WHITE);
 			}
-			
-			if(!airdrop) {
-				parameters.put("type","validSummonRangeHighlight");}
-			
-			GameState.getInstance().broadcastEvent(Tile.class,parameters);
 		}
 	}
 
+	/**
+	 * shuffle the deck, e.g. a deck of a match template
+	 * @param random: the match's, see GameState.getRandom
+	 */
+	public void shuffleDeck(Random random) {
+		Collections.shuffle(deck, random);
+	}
+
 	/**
 	 * getter and setter
 	 */
@@ -271,6 +284,7 @@ public class Player {
 			newMana = 6;
 		}
 		this.mana = newMana;
+		HighlightMap.changed();
 		BasicCommands.setPlayer1Mana(GameState.getInstance().getOut(), this);
 	}
 
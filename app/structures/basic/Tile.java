@@ -1,13 +1,14 @@
 package structures.basic;
 
-import java.io.File;
 import java.util.*;
 import java.util.function.Function;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import commands.BasicCommands;
+import structures.ClientAcks;
 import structures.GameState;
 import structures.Observer;
+import utils.AnimationTimings;
+import utils.BasicObjectBuilders;
 import utils.ToolBox;
 
 
@@ -41,12 +42,11 @@ public class Tile extends Observer {
 	int tilex;
 	int tiley;
 	private TileState tileState = TileState.NORMAL;
+	// the state last drawn on the front-end
+	private TileState renderedState = TileState.NORMAL;
 	private Unit unitOnTile;
 	private Set<Tile> moveableTiles = new HashSet<>();
 
-	@JsonIgnore
-	private static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
-
 	public Tile() {}
 
 	public Tile(String tileTexture, int xpos, int ypos, int width, int height, int tilex, int tiley) {
@@ -81,7 +81,7 @@ public class Tile extends Observer {
 	 */
 	public static Tile constructTile(String configFile) {
 		try {
-			Tile tile = mapper.readValue(new File(configFile), Tile.class);
+			Tile tile = BasicObjectBuilders.read(configFile, Tile.class);
 			return tile;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -99,93 +99,19 @@ public class Tile extends Observer {
 
 		if (this.getClass().equals(target)) {
 
-			//handle 1: find unit(all,avatar,(enemy) unit)
-			if (parameters.get("type").equals("searchUnit")) {
-				//if there is a unit on it
-				if (this.unitOnTile != null) {
-					if (    //if we need a enemy unit and it is the one.
-							(parameters.get("range").equals("enemy") && this.unitOnTile.getOwner() != GameState.getInstance().getCurrentPlayer())
-									//if we need every unit.
-									|| parameters.get("range").equals("all")
-									//if we need all non-avtar unit and it is the one.
-									|| (parameters.get("range").equals("non_avatar") && this.unitOnTile.id < 99)
-					) {
-						this.setTileState(TileState.WHITE);
-					}
-					else if (parameters.get("range").equals("your_avatar")
-							//if it is a avatar
-							&& this.unitOnTile.id >= 99
-							//if it is the avatar of current player
-							&& this.unitOnTile.getOwner().equals(GameState.getInstance().getCurrentPlayer())) {
-						this.setTileState(TileState.WHITE);
-					}
-					else if (parameters.get("range").equals("all_friends")
-							&& !this.unitOnTile.getOwner().isHumanOrAI()) {
-						AIPlayer aiPlayer = (AIPlayer) GameState.getInstance().getCurrentPlayer();
-						aiPlayer.addToOptionalTile(this);
-					}
-				}
-			}
-
-			//handle 2 -1 : find valid summon tile
-			else if (parameters.get("type").equals("validSummonRangeHighlight")) {
-				//EX: highlight all
+			//handle 1: airdrop, every empty tile is a valid summon tile
+			//(the other targets of cards are highlighted from LegalActions by Player)
+			if (parameters.get("type").equals("validSummonRangeHighlight")) {
 				if (parameters.get("airdrop") != null
 						&& parameters.get("airdrop").equals("activate")) {
 					if (this.unitOnTile == null) {
 						//Change the  texture state
 						this.setTileState(TileState.WHITE);
-						try {
-							Thread.sleep(10);
-						}catch (InterruptedException e){e.printStackTrace();}
-					}
-					return;
-				}
-
-				//normally:
-				// a. find a friendly unit
-				if (this.unitOnTile != null && this.unitOnTile.getOwner() == GameState.getInstance().getCurrentPlayer()) {
-					int[] xpos = new int[]{
-							-1, -1, -1, 0, 0, 1, 1, 1
-					};
-					int[] ypos = new int[]{
-							-1, 0, 1, -1, 1, -1, 0, 1
-					};
-					//check all neighbour tiles
-					for (int i = 0; i < xpos.length; i++) {
-						parameters = new HashMap<>();
-						parameters.put("type", "validSummonRangeHighlight-checkNeighbour");
-						parameters.put("tilex", this.tilex + xpos[i]);
-						parameters.put("tiley", this.tiley + ypos[i]);
-						GameState.getInstance().broadcastEvent(Tile.class, parameters);
 					}
 				}
 			}
 
-			//handle 2 -2 : check if there is a unit on it
-			else if (parameters.get("type").equals("validSummonRangeHighlight-checkNeighbour")) {
-				if (this.unitOnTile == null
-						&& (Integer) parameters.get("tilex") == this.tilex
-						&& (Integer) parameters.get("tiley") == this.tiley
-				) {
-					//Change the backend texture state
-					this.setTileState(TileState.WHITE);
-				}
-			}
-
-			//handle 3: reset tile texture
-			else if (parameters.get("type").equals("textureReset")) {
-				if (!this.tileState.equals(TileState.NORMAL)) {
-					//Change the backend texture state
-					this.setTileState(TileState.NORMAL);
-
-					try {
-						Thread.sleep(10);
-					}catch (InterruptedException e){e.printStackTrace();}
-				}
-			}
-
-			//handle 4: summon a unit
+			//handle 3: summon a unit
 			else if (parameters.get("type").equals("summon")) {
 				if ((Integer) parameters.get("tilex") == this.tilex
 						&& (Integer) parameters.get("tiley") == this.tiley) {
@@ -206,11 +132,7 @@ public class Tile extends Observer {
 					// render front-end
 					BasicCommands.drawUnit(GameState.getInstance().getOut(), unit, this);
 					// wait for the creation of the unit
-					try {
-						Thread.sleep(500);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
+					ToolBox.pause(AnimationTimings.frame());
 
 					//remove from hand
 					if (GameState.getInstance().getCurrentState().equals(GameState.CurrentState.CARD_SELECT)) {
@@ -230,35 +152,6 @@ public class Tile extends Observer {
 					GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
 				}
 			}
-			// show the move highlight, and record the highlight tile
-			else if (parameters.get("type").equals("moveHighlight")) {
-				if (Integer.parseInt(String.valueOf(parameters.get("tilex"))) == this.tilex
-						&& Integer.parseInt(String.valueOf(parameters.get("tiley"))) == this.tiley) {
-					if (this.unitOnTile == null && this.tileState == TileState.NORMAL) {
-						if(parameters.get("count") != null){
-							this.setTileState(TileState.WHITE);
-							GameState.getInstance().getTileSelected().getMoveableTiles().add(this);
-							int count = Integer.parseInt(String.valueOf(parameters.get("count")));
-							this.moveHighlight(count);
-							// set the tile highlight which the unit can attack after moving
-							this.attackHighlight();
-						}
-					}
-				}
-			}
-			// show the attack highlight
-			else if (parameters.get("type").equals("attackHighlight")) {
-				if (Integer.parseInt(String.valueOf(parameters.get("tilex"))) == this.tilex
-						&& Integer.parseInt(String.valueOf(parameters.get("tiley"))) == this.tiley) {
-					// if the unit is enemy unit, highlight the tile to red
-					if (this.unitOnTile != null) {
-						if (!this.unitOnTile.getOwner().equals(GameState.getInstance().getCurrentPlayer())
-								&& this.tileState == TileState.NORMAL) {
-							this.setTileState(TileState.RED);
-						}
-					}
-				}
-			}
 			// when a unit dead, tile delete unit on this tile
 			else if (parameters.get("type").equals("deleteUnit")) {
 				if (Integer.parseInt(String.valueOf(parameters.get("tilex"))) == this.tilex
@@ -310,14 +203,6 @@ public class Tile extends Observer {
 					this.resetTileSelected();
 				}
 			}
-			// highlight the ranged unit attack
-			else if (parameters.get("type").equals("rangedUnitAttackHighlight")) {
-				if (this.unitOnTile != null) {
-					if (this.unitOnTile.getOwner() != GameState.getInstance().getCurrentPlayer()) {
-						this.setTileState(TileState.RED);
-					}
-				}
-			}
 			// first click a tile
 			else if (parameters.get("type").equals("firstClickTile")) {
 				if (Integer.parseInt(String.valueOf(parameters.get("tilex"))) == this.tilex
@@ -329,15 +214,12 @@ public class Tile extends Observer {
 						newParameters = new HashMap<>();
 						newParameters.put("provokedUnit", this.unitOnTile);
 
-						int[] offsetx = new int[]{1, 1, 0, -1, -1, -1, 0, 1};
-						int[] offsety = new int[]{0, 1, 1, 1, 0, -1, -1, -1};
+						for (int i = 0; i < Board.ADJACENT_X.length; i++) {
 
-						for (int i = 0; i < offsetx.length; i++) {
+							int newTileX = tilex + Board.ADJACENT_X[i];
+							int newTileY = tiley + Board.ADJACENT_Y[i];
 
-							int newTileX = tilex + offsetx[i];
-							int newTileY = tiley + offsety[i];
-
-							if (newTileX >= 0 && newTileY >= 0) {
+							if (onBoard(newTileX, newTileY)) {
 								newParameters.put("type", "searchUnitCanProvoke");
 								newParameters.put("tilex", newTileX);
 								newParameters.put("tiley", newTileY);
@@ -348,27 +230,11 @@ public class Tile extends Observer {
 						if(!this.unitOnTile.isProvoked()) {
 							if (this.unitOnTile.getOwner().equals(GameState.getInstance().getCurrentPlayer())) {
 								// if the unit hasn't moved or attack, it can move and attack
-								if (this.unitOnTile.getCurrentState().equals(Unit.UnitState.READY)) {
-									GameState.getInstance().setTileSelected(this);
-
-									// if the unit this tile has ranged attack ability
-									if (this.unitOnTile.rangedAttack) { // if the unit have ranged attack ability
-										allBroadcast("attackHighlight");
-										this.moveHighlight(0);
-									}
-									// Unit Ability: Flying
-									if (this.unitOnTile.flying) {
-										allBroadcast("moveHighlight");
-									} else {
-										this.moveHighlight(0);
-										this.attackHighlight();
-									}
-									GameState.getInstance().setCurrentState(GameState.CurrentState.UNIT_SELECT);
-								}
-								// if the unit has moved, it can't move but can attack, only highlight attack unit
-								else if (this.unitOnTile.getCurrentState().equals(Unit.UnitState.HAS_MOVED)) {
+								// if the unit has moved, it can't move but can attack
+								if (this.unitOnTile.getCurrentState().equals(Unit.UnitState.READY)
+										|| this.unitOnTile.getCurrentState().equals(Unit.UnitState.HAS_MOVED)) {
 									GameState.getInstance().setTileSelected(this);
-									this.attackHighlight();
+									this.highlightActions();
 									GameState.getInstance().setCurrentState(GameState.CurrentState.UNIT_SELECT);
 								}
 							}
@@ -388,14 +254,21 @@ public class Tile extends Observer {
 					// case 1: NORMAL - reset
 					if (this.tileState.equals(TileState.NORMAL)) {
 						if(this.unitOnTile != null && this.unitOnTile.getOwner().equals(GameState.getInstance().getCurrentPlayer())){
-							this.resetTileSelected();
-							this.moveableTiles.clear();
-
-							parameters = new HashMap<>();
-							parameters.put("type","firstClickTile");
-							parameters.put("tilex",this.tilex);
-							parameters.put("tiley",this.tiley);
-							GameState.getInstance().broadcastEvent(Tile.class,parameters);
+							//select another unit, only redraw the tiles differ from the old highlight
+							GameState.getInstance().beginHighlightRebuild();
+							try {
+								this.resetTileSelected();
+								this.moveableTiles.clear();
+
+								parameters = new HashMap<>();
+								parameters.put("type","firstClickTile");
+								parameters.put("tilex",this.tilex);
+								parameters.put("tiley",this.tiley);
+								GameState.getInstance().broadcastEvent(Tile.class,parameters);
+							}
+							finally {
+								GameState.getInstance().endHighlightRebuild();
+							}
 						}
 						else {
 							ToolBox.logNotification(ToolBox.currentPlayerName() + "cancel unit select!");
@@ -436,12 +309,8 @@ public class Tile extends Observer {
 								else {
 									for (Tile x : originTile.getMoveableTiles()) {
 										if (x.getTileState().equals(TileState.WHITE) && distanceOfTiles(x, this) <= 2) {
+											// move() waits until the unit has arrived
 											x.checkMoveVertically(originTile);
-											try {
-												Thread.sleep(2000);
-											} catch (InterruptedException e) {
-												e.printStackTrace();
-											}
 
 											//attack(unit, this.unitOnTile);
 											this.attackedBroadcast(unit);
@@ -456,17 +325,6 @@ public class Tile extends Observer {
 
 				}
 			}
-			// for AI player to find the operation tile
-			else if (parameters.get("type").equals("AI_FindOperateTile")) {
-				// find white tiles - for play card, unit move
-				if (this.tileState.equals(TileState.WHITE)) {
-					((AIPlayer) GameState.getInstance().getCurrentPlayer()).addToWhiteGroup(this);
-				}
-				// find red tiles - for unit attack
-				else if (this.tileState.equals(TileState.RED)) {
-					((AIPlayer) GameState.getInstance().getCurrentPlayer()).addToRedGroup(this);
-				}
-			}
 			// check if a unit could move vertically first
 			else if (parameters.get("type").equals("checkMoveVertically")){
 				if(Integer.parseInt(String.valueOf(parameters.get("tilex"))) == this.tilex
@@ -511,57 +369,22 @@ public class Tile extends Observer {
 	}
 
 	/**
-	 * show the moveable highlight - white
-	 * @param count move step
+	 * highlight what the unit on this tile can do (LegalActions): moves in white, attacks in red
 	 */
-	private void moveHighlight(int count) {
-		if (count > 1){
-			return;
-		}
-
-		count ++;
-		Map<String, Object> newParameters;
-
-		int[] offsetx = new int[]{ 0, 1,-1, 0};
-		int[] offsety = new int[]{ 1, 0, 0,-1};
-
-		for (int i = 0; i < offsetx.length; i++) {
-
-			int newTileX = tilex + offsetx[i];
-			int newTileY = tiley + offsety[i];
-
-			if (newTileX >= 0 && newTileY >= 0) {
-				newParameters = new HashMap<>();
-				newParameters.put("type", "moveHighlight");
-				newParameters.put("tilex", newTileX);
-				newParameters.put("tiley", newTileY);
-				newParameters.put("count",count);
-				newParameters.put("originTile",this);
-				GameState.getInstance().broadcastEvent(Tile.class, newParameters);
+	private void highlightActions() {
+		Board board = GameState.getInstance().getBoard();
+		int source = board.indexOf(tilex, tiley);
+		for (int action : LegalActions.generate()) {
+			int type = LegalActions.type(action);
+			if ((type != LegalActions.MOVE && type != LegalActions.ATTACK) || LegalActions.source(action) != source) {
+				continue;
 			}
-		}
-	}
-
-	/**
-	 * show the attack highlight - red
-	 */
-	private void attackHighlight() {
-		Map<String, Object> newParameters;
-
-		int[] offsetx = new int[]{1, 1, 0, -1, -1, -1, 0, 1};
-		int[] offsety = new int[]{0, 1, 1, 1, 0, -1, -1, -1};
-
-		for (int i = 0; i < offsetx.length; i++) {
-
-			int newTileX = tilex + offsetx[i];
-			int newTileY = tiley + offsety[i];
-
-			if (newTileX >= 0 && newTileY >= 0) {
-				newParameters = new HashMap<>();
-				newParameters.put("type", "attackHighlight");
-				newParameters.put("tilex", newTileX);
-				newParameters.put("tiley", newTileY);
-				GameState.getInstance().broadcastEvent(Tile.class, newParameters);
+			Tile target = board.getTiles()[LegalActions.target(action)];
+			if (type == LegalActions.MOVE) {
+				target.setTileState(TileState.WHITE);
+				this.moveableTiles.add(target);
+			} else {
+				target.setTileState(TileState.RED);
 			}
 		}
 	}
@@ -584,7 +407,7 @@ public class Tile extends Observer {
 		
 		// reset the game state
 		resetTileSelected();
-		try {Thread.sleep(500);} catch (InterruptedException e) {e.printStackTrace();}
+		ToolBox.pause(AnimationTimings.frame());
 	}
 
 	/**
@@ -596,15 +419,17 @@ public class Tile extends Observer {
 	private void move(Unit unit, Tile originTile, boolean mode) {
 		// clear highlight
 		resetTileSelected();
-		try {Thread.sleep(500);} catch (InterruptedException e) { e.printStackTrace();}
+		ToolBox.pause(AnimationTimings.frame());
 
 		// front-end: play animation
-		if (mode) { BasicCommands.moveUnitToTile(GameState.getInstance().getOut(), unit, this, true);	}
-		else {BasicCommands.moveUnitToTile(GameState.getInstance().getOut(), unit, this);}
+		ClientAcks acks = GameState.getInstance().getAcks();
+		int ackId = acks.expect(unit.getId(), ClientAcks.MOVE);
+		BasicCommands.moveUnitToTile(GameState.getInstance().getOut(), unit, this, mode, ackId);
 
 		ToolBox.logNotification(ToolBox.currentPlayerName() + ": " + unit.getId() + " move to (" + this.tilex + "," + this.tiley + ")");
 
-		try {Thread.sleep(2000);} catch (InterruptedException e) {e.printStackTrace();}
+		//wait for the unit to stop on screen
+		acks.await(ackId, AnimationTimings.move(originTile, this));
 
 		// back-end: unit move to tile
 		unit.setPositionByTile(this);
@@ -644,27 +469,18 @@ public class Tile extends Observer {
 		GameState.getInstance().setTileSelected(null);
 		GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
 
-		Map<String, Object> parameters = new HashMap<>();
-		parameters.put("type", "textureReset");
-		GameState.getInstance().broadcastEvent(Tile.class, parameters);
+		GameState.getInstance().resetHighlights();
 	}
 
 	/**
-	 * broadcast to all tiles (ranged attack/flying)
+	 * check whether a grid position is on the board of current game
 	 */
-	private static void allBroadcast(String type) {
-		Map<String, Object> newParameters = new HashMap<>();
-		newParameters.put("type", type);
-		for (int i = 0; i < 9; i++) {
-			for (int j = 0; j < 5; j++) {
-				newParameters.put("tilex", i);
-				newParameters.put("tiley", j);
-				if (type.equals("moveHighlight")) {
-					newParameters.put("count", 0);
-				}
-				GameState.getInstance().broadcastEvent(Tile.class, newParameters);
-			}
+	private static boolean onBoard(int tilex, int tiley) {
+		Board board = GameState.getInstance().getBoard();
+		if (board == null) {
+			return tilex >= 0 && tiley >= 0;
 		}
+		return board.contains(tilex, tiley);
 	}
 
 	/**
@@ -698,15 +514,12 @@ public class Tile extends Observer {
 	private void adjacentBroadcast(String type) {
 		Map<String, Object> newParameters;
 
-		int[] offsetx = new int[]{1, 1, 0, -1, -1, -1, 0, 1};
-		int[] offsety = new int[]{0, 1, 1, 1, 0, -1, -1, -1};
+		for (int i = 0; i < Board.ADJACENT_X.length; i++) {
 
-		for (int i = 0; i < offsetx.length; i++) {
+			int newTileX = tilex + Board.ADJACENT_X[i];
+			int newTileY = tiley + Board.ADJACENT_Y[i];
 
-			int newTileX = tilex + offsetx[i];
-			int newTileY = tiley + offsety[i];
-
-			if (newTileX >= 0 && newTileY >= 0) {
+			if (onBoard(newTileX, newTileY)) {
 				newParameters = new HashMap<>();
 				newParameters.put("type", type);
 				newParameters.put("tilex", newTileX);
@@ -716,6 +529,16 @@ public class Tile extends Observer {
 		}
 	}
 
+	/**
+	 * what a click on this tile does for the selected unit
+	 * @return LegalActions.MOVE (white), LegalActions.ATTACK (red), 0 if it is not highlighted
+	 */
+	public int highlightedAction() {
+		if (tileState == TileState.WHITE) return LegalActions.MOVE;
+		if (tileState == TileState.RED) return LegalActions.ATTACK;
+		return 0;
+	}
+
 	/**
 	 * getter and setter
 	 */
@@ -725,8 +548,33 @@ public class Tile extends Observer {
 
 	public void setTileState(TileState tileState) {
 		this.tileState = tileState;
-		//render the frontend
-		BasicCommands.drawTile(GameState.getInstance().getOut(), this, this.tileState.mode);
+		GameState.getInstance().highlightChanged(this);
+		//render the frontend, unless the highlight is being rebuilt
+		if (!GameState.getInstance().isRebuildingHighlight()) {
+			renderTileState();
+		}
+	}
+
+	/**
+	 * draw the tile on the front-end if its state differs from the one drawn last time
+	 */
+	public void renderTileState() {
+		if (renderedState != tileState) {
+			renderedState = tileState;
+			BasicCommands.drawTile(GameState.getInstance().getOut(), this, this.tileState.mode);
+		}
+	}
+
+	/**
+	 * set the tile back to NORMAL
+	 */
+	public void resetTileState() {
+		setTileState(TileState.NORMAL);
+	}
+
+	@JsonIgnore
+	public boolean isHighlighted() {
+		return tileState != TileState.NORMAL;
 	}
 
 	public Unit getUnitOnTile() {
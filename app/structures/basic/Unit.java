@@ -1,10 +1,13 @@
 package structures.basic;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import commands.BasicCommands;
+import structures.ClientAcks;
 import structures.GameState;
 import structures.Observer;
+import utils.AnimationTimings;
+import utils.HighlightMap;
+import utils.MatchSnapshots;
 import utils.ToolBox;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,9 +28,6 @@ import java.util.Map.Entry;
  */
 public class  Unit extends Observer {
 
-	@JsonIgnore
-	protected static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
-
 	public enum UnitState {
 		//the unit is ready after the next turn of summon
 		NOT_READY, READY, HAS_MOVED, HAS_ATTACKED
@@ -97,6 +97,7 @@ public class  Unit extends Observer {
 	@JsonIgnore
 	public void setPositionByTile(Tile tile) {
 		position = new Position(tile.getXpos(), tile.getYpos(), tile.getTilex(), tile.getTiley());
+		HighlightMap.changed();
 	}
 
 	/**
@@ -126,8 +127,10 @@ public class  Unit extends Observer {
 
 			health = 0;
 			BasicCommands.setUnitHealth(GameState.getInstance().getOut(), this, health);
-			BasicCommands.playUnitAnimation(GameState.getInstance().getOut(), this, UnitAnimationType.death);
-			try {Thread.sleep(2000);} catch (InterruptedException e) {e.printStackTrace();}
+			ClientAcks acks = GameState.getInstance().getAcks();
+			int ackId = acks.expect(this.getId(), ClientAcks.ANIMATION);
+			BasicCommands.playUnitAnimation(GameState.getInstance().getOut(), this, UnitAnimationType.death, ackId);
+			acks.await(ackId, AnimationTimings.unitAnimation(this, UnitAnimationType.death));
 
 			BasicCommands.deleteUnit(GameState.getInstance().getOut(), this);
 
@@ -136,11 +139,17 @@ public class  Unit extends Observer {
 			newParameters.put("tilex", this.getPosition().getTilex());
 			newParameters.put("tiley", this.getPosition().getTiley());
 			GameState.getInstance().broadcastEvent(Tile.class, newParameters);
+
+			//a dead unit no longer listens to events
+			GameState.getInstance().remove(this);
+
 			if (this.getId() == 100) {
 				ToolBox.logNotification("Congratulations, You Win!!!");
+				MatchSnapshots.discard();
 			}
 			else if (this.getId() == 99) {
 				ToolBox.logNotification("Unfortunately, You Lost > <!!!");
+				MatchSnapshots.discard();
 			}
 		}
 		else{ // if health is not bigger than max and does not die
@@ -230,12 +239,10 @@ public class  Unit extends Observer {
 				}
 			}
 		}
-		BasicCommands.playUnitAnimation(GameState.getInstance().getOut(), attacker, UnitAnimationType.attack);
-		try {
-			Thread.sleep(2000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+		ClientAcks acks = GameState.getInstance().getAcks();
+		int ackId = acks.expect(attacker.getId(), ClientAcks.ANIMATION);
+		BasicCommands.playUnitAnimation(GameState.getInstance().getOut(), attacker, UnitAnimationType.attack, ackId);
+		acks.await(ackId, AnimationTimings.unitAnimation(attacker, UnitAnimationType.attack));
 		BasicCommands.playUnitAnimation(GameState.getInstance().getOut(), attacker, UnitAnimationType.idle);
 
 		this.changeHealth(this.getHealth() - attacker.getAttack(), false);
@@ -310,6 +317,10 @@ public class  Unit extends Observer {
 		this.animations = animations;
 	}
 
+	public int getMaxHealth() {
+		return maxHealth;
+	}
+
 	public void setMaxHealth(int maxHealth) {
 		this.maxHealth = maxHealth;
 	}
@@ -344,6 +355,7 @@ public class  Unit extends Observer {
 
 	public void setHealth(int health) {
 		this.health = health;
+		HighlightMap.changed();
 		// if it is a avatar, set player's health
 		if (this.getId() == 99 || this.getId() == 100) {
 			this.getOwner().setHealth(health);
@@ -352,11 +364,17 @@ public class  Unit extends Observer {
 
 	public int getAttackNum() {return attackNum;}
 
-	public void setAttackNum(int attackNum) {this.attackNum = attackNum;}
+	public void setAttackNum(int attackNum) {
+		this.attackNum = attackNum;
+		HighlightMap.changed();
+	}
 
 	public int getMoveNum() {return moveNum;}
 
-	public void setMoveNum(int moveNum) {this.moveNum = moveNum;}
+	public void setMoveNum(int moveNum) {
+		this.moveNum = moveNum;
+		HighlightMap.changed();
+	}
 
 	public boolean getCanProvoke() {return this.canProvoke;}
 
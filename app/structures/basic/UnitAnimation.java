@@ -1,5 +1,7 @@
 package structures.basic;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * This contains information for playing a Unit's animation, e.g.
  * move, attack, or idle. One of these animations as a start and
@@ -48,6 +50,19 @@ public class UnitAnimation {
 	public void setLoop(boolean loop) {
 		this.loop = loop;
 	};
+
+	/**
+	 * Time the front-end needs to play this animation once
+	 * @return milliseconds
+	 */
+	@JsonIgnore
+	public long getDurationMillis() {
+		if (frameStartEndIndices == null || frameStartEndIndices.length < 2 || fps <= 0) {
+			return 0;
+		}
+		int frames = frameStartEndIndices[1] - frameStartEndIndices[0] + 1;
+		return (long) Math.ceil(frames * 1000.0 / fps);
+	}
 	
 	
 	
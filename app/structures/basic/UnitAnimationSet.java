@@ -81,6 +81,23 @@ public class UnitAnimationSet {
 	public void setHit(UnitAnimation hit) {
 		this.hit = hit;
 	}
+
+	/**
+	 * get the animation of a type
+	 * @param type
+	 * @return the animation, null if the set does not have it
+	 */
+	public UnitAnimation getAnimation(UnitAnimationType type) {
+		switch (type) {
+			case idle: return idle;
+			case death: return death;
+			case attack: return attack;
+			case move: return move;
+			case channel: return channel;
+			case hit: return hit;
+			default: return null;
+		}
+	}
 	
 	
 	
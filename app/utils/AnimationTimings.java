@@ -0,0 +1,72 @@
+package utils;
+
+import structures.basic.EffectAnimation;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import structures.basic.UnitAnimation;
+import structures.basic.UnitAnimationType;
+
+/**
+ * This class works out how long a command takes to be shown on the front-end, so the
+ * game waits exactly as long as needed. Unit animations and effects are timed from
+ * their frames and fps, moves from the distance the sprite travels.
+ *
+ */
+public class AnimationTimings {
+
+	// the game loop of the front-end runs at 60 frames per second
+	public static final int clientFps = 60;
+	// pixels a unit sprite moves per frame (moveVelocity in gamescreen)
+	public static final int moveVelocity = 2;
+	// one frame of the front-end, the time a command without animation needs to be drawn
+	public static final long frameMillis = (long) Math.ceil(1000.0 / clientFps);
+
+	// used when a unit has no animation data
+	private static final long defaultAnimationMillis = 2000;
+
+	/**
+	 * Time for a unit to play one of its animations
+	 * @param unit
+	 * @param type
+	 * @return milliseconds
+	 */
+	public static long unitAnimation(Unit unit, UnitAnimationType type) {
+		if (unit.getAnimations() == null) {
+			return defaultAnimationMillis;
+		}
+		UnitAnimation animation = unit.getAnimations().getAnimation(type);
+		if (animation == null || animation.getDurationMillis() == 0) {
+			return defaultAnimationMillis;
+		}
+		return animation.getDurationMillis() + frameMillis;
+	}
+
+	/**
+	 * Time for a unit to move between two tiles. The sprite moves along x and then y
+	 * (or y then x), so the distance is the same either way.
+	 * @param from
+	 * @param to
+	 * @return milliseconds
+	 */
+	public static long move(Tile from, Tile to) {
+		int pixels = Math.abs(from.getXpos() - to.getXpos()) + Math.abs(from.getYpos() - to.getYpos());
+		return (long) Math.ceil(pixels * 1000.0 / (moveVelocity * clientFps)) + frameMillis;
+	}
+
+	/**
+	 * Time to play an effect
+	 * @param effect
+	 * @return milliseconds
+	 */
+	public static long effect(EffectAnimation effect) {
+		return effect.getDurationMillis() + frameMillis;
+	}
+
+	/**
+	 * Time for a command without animation (draw a card or a unit, delete a card) to be shown
+	 * @return milliseconds
+	 */
+	public static long frame() {
+		return frameMillis;
+	}
+}
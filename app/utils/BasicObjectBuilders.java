@@ -1,9 +1,7 @@
 package utils;
 
 import java.io.File;
-
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 
 import structures.basic.Card;
 import structures.basic.EffectAnimation;
@@ -18,8 +16,12 @@ import structures.basic.Unit;
  */
 public class BasicObjectBuilders {
 
-	@JsonIgnore
-	protected static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
+	// pixel layout of the board
+	private static final int gridmargin = 5;
+	private static final int gridTopLeftx = 410;
+	private static final int gridTopLefty = 280;
+	
+	private static Tile tileTemplate = null;
 	
 	/**
 	 * This class produces a Card object (or anything that extends Card) given a configuration
@@ -36,7 +38,7 @@ public class BasicObjectBuilders {
 	 */
 	public static Card loadCard(String configurationFile, int id, Class<? extends Card> classtype) {
 		try {
-			Card card = mapper.readValue(new File(configurationFile), classtype);
+			Card card = read(configurationFile, classtype);
 			card.setId(id);
 			return card;
 		} catch (Exception e) {
@@ -54,7 +56,7 @@ public class BasicObjectBuilders {
 	 */
 	public static EffectAnimation loadEffect(String configurationFile) {
 		try {
-			EffectAnimation effect = mapper.readValue(new File(configurationFile), EffectAnimation.class);
+			EffectAnimation effect = read(configurationFile, EffectAnimation.class);
 			return effect;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -74,7 +76,7 @@ public class BasicObjectBuilders {
 	public static Unit loadUnit(String configFile, int id,  Class<? extends Unit> classType) {
 		
 		try {
-			Unit unit = mapper.readValue(new File(configFile), classType);
+			Unit unit = read(configFile, classType);
 			unit.setId(id);
 			return unit;
 		} catch (Exception e) {
@@ -85,6 +87,20 @@ public class BasicObjectBuilders {
 		
 	}
 	
+	/**
+	 * read a configuration from the game data bundle, or from its file if it is not
+	 * in the bundle
+	 * @param configFile
+	 * @param type
+	 * @return
+	 * @throws IOException
+	 */
+	public static <T> T read(String configFile, Class<T> type) throws IOException {
+		T value = GameDataBundle.read(configFile, type);
+		if (value != null) return value;
+		return Codecs.reader(type).readValue(new File(configFile));
+	}
+	
 	/**
 	 * Generates a tile object with x and y indices
 	 * @param x
@@ -92,15 +108,15 @@ public class BasicObjectBuilders {
 	 * @return
 	 */
 	public static Tile loadTile(int x, int y) {
-		int gridmargin = 5;
-		int gridTopLeftx = 410;
-		int gridTopLefty = 280;
+		// the tile configuration is the same for every tile, so only read it once
+		if (tileTemplate == null) {
+			tileTemplate = Tile.constructTile(StaticConfFiles.tileConf);
+		}
 		
-		Tile tile = Tile.constructTile(StaticConfFiles.tileConf);
+		Tile tile = new Tile(tileTemplate.getTileTextures(), 0, 0,
+				tileTemplate.getWidth(), tileTemplate.getHeight(), x, y);
 		tile.setXpos((tile.getWidth()*x)+(gridmargin*x)+gridTopLeftx);
 		tile.setYpos((tile.getHeight()*y)+(gridmargin*y)+gridTopLefty);
-		tile.setTilex(x);
-		tile.setTiley(y);
 		
 		return tile;
 		
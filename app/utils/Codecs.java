@@ -0,0 +1,81 @@
+package utils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import structures.basic.AIPlayer;
+import structures.basic.Card;
+import structures.basic.EffectAnimation;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/**
+ * The Jackson codecs of the server. An ObjectMapper is expensive to build and fills
+ * its serializer caches on first use, so the game shares one mapper and keeps an
+ * ObjectReader and an ObjectWriter per type (Tile, Unit, Card, EffectAnimation,
+ * Player), built when the class is loaded. Readers and writers are immutable and
+ * thread safe, so they stay warm across matches and connections.
+ *
+ */
+public class Codecs {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+	static {
+		for (Class<?> type : new Class<?>[] {Tile.class, Unit.class, Card.class, EffectAnimation.class,
+				Player.class, AIPlayer.class}) {
+			reader(type);
+			writer(type);
+		}
+	}
+
+	public static ObjectMapper mapper() {
+		return mapper;
+	}
+
+	/**
+	 * @param type: e.g. Card.class or a class extending it
+	 * @return the reader of the type
+	 */
+	public static ObjectReader reader(Class<?> type) {
+		return readers.computeIfAbsent(type, mapper::readerFor);
+	}
+
+	/**
+	 * @param type: the runtime class of the values written
+	 * @return the writer of the type
+	 */
+	public static ObjectWriter writer(Class<?> type) {
+		return writers.computeIfAbsent(type, mapper::writerFor);
+	}
+
+	/**
+	 * an object as a JsonNode, written straight into a token buffer instead of a String
+	 * that is parsed again
+	 * @param value
+	 * @return
+	 * @throws IOException
+	 */
+	public static JsonNode toTree(Object value) throws IOException {
+		if (value == null) return mapper.nullNode();
+		TokenBuffer buffer = new TokenBuffer(mapper, false);
+		writer(value.getClass()).writeValue(buffer, value);
+		return mapper.readTree(buffer.asParser());
+	}
+
+	public static String toJson(Object value) throws IOException {
+		if (value == null) return "null";
+		return writer(value.getClass()).writeValueAsString(value);
+	}
+}
@@ -0,0 +1,228 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The game configs (cards, units, effects, tiles, avatars) packed into one file. The
+ * records are the config files encoded with Smile, indexed by their path as
+ * StaticConfFiles names them, e.g. StaticConfFiles.c_truestrike. The server maps the
+ * file into memory once and parses a record straight from the mapped bytes, instead
+ * of opening and parsing a JSON file for each card or unit built. A path missing from
+ * the bundle, or a missing bundle, is read from its file as before.
+ *
+ * The bundle keeps the modification time of each config when it was packed. With
+ * -Dmatch.bundle.checkStale=true they are compared when the bundle is opened, and a
+ * config changed since is read from its file, with a warning to rebuild the bundle;
+ * without it nothing is read from the configs at start up.
+ *
+ * Built from conf/gameconfs, from the project root, and again whenever a config
+ * changes:
+ *
+ *   runMain utils.GameDataBundle [conf/gameconfs] [conf/gameconfs.bundle]
+ *
+ * Layout: "GDB2", number of records, then per record its path (modified UTF-8, as
+ * DataOutput.writeUTF), offset, length and the config's modification time (millis),
+ * then the records.
+ *
+ * The bundle file is set with -Dmatch.bundle (conf/gameconfs.bundle by default).
+ *
+ */
+public class GameDataBundle {
+
+	public static String bundleFile = System.getProperty("match.bundle", "conf/gameconfs.bundle");
+	public static boolean checkStale = Boolean.getBoolean("match.bundle.checkStale");
+
+	// the records are named as if the configs were packed from here
+	public static final String root = "conf/gameconfs/";
+
+	private static final int magic = 0x47444232; // GDB2
+
+	private static final Logger logger = LoggerFactory.getLogger(GameDataBundle.class);
+
+	private static final SmileFactory smile = new SmileFactory()
+			.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+
+	private static volatile Bundle bundle = null;
+
+	/**
+	 * the mapped file and where each record is in it
+	 */
+	private static class Bundle {
+		final ByteBuffer data;
+		final Map<String, int[]> index;
+
+		Bundle(ByteBuffer data, Map<String, int[]> index) {
+			this.data = data;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * map the bundle into memory, e.g. at start up. Without a bundle every config is
+	 * read from its file.
+	 */
+	public static synchronized void open() {
+		if (bundle != null) return;
+		Path file = Paths.get(bundleFile);
+		if (!Files.exists(file)) {
+			bundle = new Bundle(ByteBuffer.allocate(0), Collections.emptyMap());
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			DataInputStream in = new DataInputStream(new ByteBufferBackedInputStream(data.duplicate()));
+			if (in.readInt() != magic) throw new IOException("Not a game data bundle: " + file);
+			int count = in.readInt();
+			Map<String, int[]> index = new HashMap<>();
+			Map<String, Long> packed = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				index.put(path, new int[] {in.readInt(), in.readInt()});
+				packed.put(path, in.readLong());
+			}
+			if (checkStale) dropStale(index, packed);
+			bundle = new Bundle(data, index);
+		} catch (IOException e) {
+			e.printStackTrace();
+			bundle = new Bundle(ByteBuffer.allocate(0), Collections.emptyMap());
+		}
+	}
+
+	/**
+	 * forget the mapped bundle, e.g. after packing a new one
+	 */
+	public static synchronized void close() {
+		bundle = null;
+	}
+
+	/**
+	 * leave out the records of configs changed since they were packed, they are read
+	 * from their files
+	 * @param packed: modification time of each config when it was packed
+	 */
+	private static void dropStale(Map<String, int[]> index, Map<String, Long> packed) throws IOException {
+		List<String> stale = new ArrayList<>();
+		for (String path : index.keySet()) {
+			Path config = Paths.get(path);
+			if (Files.exists(config) && Files.getLastModifiedTime(config).toMillis() != packed.get(path)) {
+				stale.add(path);
+			}
+		}
+		if (stale.isEmpty()) return;
+		index.keySet().removeAll(stale);
+		logger.warn("{} configs changed after {} was built and are read from their files, e.g. {}."
+				+ " Rebuild it with utils.GameDataBundle", stale.size(), bundleFile, stale.get(0));
+	}
+
+	/**
+	 * read a config from the bundle
+	 * @param path: the config file, e.g. StaticConfFiles.c_truestrike
+	 * @param type: class to build, e.g. Card.class
+	 * @return the object, or null if the path is not in the bundle
+	 */
+	public static <T> T read(String path, Class<T> type) throws IOException {
+		if (bundle == null) open();
+		int[] record = bundle.index.get(path);
+		if (record == null) return null;
+
+		ByteBuffer slice = bundle.data.duplicate();
+		slice.position(record[0]);
+		slice.limit(record[0] + record[1]);
+		try (JsonParser parser = smile.createParser(new ByteBufferBackedInputStream(slice))) {
+			return Codecs.reader(type).readValue(parser);
+		}
+	}
+
+	/**
+	 * the build step: pack every .json file under a directory
+	 * @param args: [config directory] [bundle file]
+	 */
+	public static void main(String[] args) throws IOException {
+		Path source = Paths.get(args.length > 0 ? args[0] : "conf/gameconfs");
+		Path target = Paths.get(args.length > 1 ? args[1] : bundleFile);
+		List<String> paths = pack(source, target);
+		System.out.println("Packed " + paths.size() + " configs into " + target);
+	}
+
+	/**
+	 * pack the configs of a directory into a bundle
+	 * @param source: the config directory, its files are named as under root
+	 * @param target: the bundle file
+	 * @return the paths of the records, as StaticConfFiles names them
+	 */
+	public static List<String> pack(Path source, Path target) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(source)) {
+			files = walk.filter(file -> file.toString().endsWith(".json"))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+
+		List<String> paths = new ArrayList<>();
+		List<Long> modified = new ArrayList<>();
+		List<byte[]> records = new ArrayList<>();
+		for (Path file : files) {
+			paths.add(root + source.relativize(file).toString().replace('\\', '/'));
+			modified.add(Files.getLastModifiedTime(file).toMillis());
+			JsonNode config = Codecs.mapper().readTree(file.toFile());
+			ByteArrayOutputStream record = new ByteArrayOutputStream();
+			try (JsonGenerator generator = smile.createGenerator(record)) {
+				Codecs.mapper().writeTree(generator, config);
+			}
+			records.add(record.toByteArray());
+		}
+
+		// the header: magic, count, then path, offset, length and modification time of each
+		// record; the paths are measured as writeUTF writes them
+		ByteArrayOutputStream names = new ByteArrayOutputStream();
+		DataOutputStream namesOut = new DataOutputStream(names);
+		for (String path : paths) namesOut.writeUTF(path);
+		int headerSize = 8 + namesOut.size() + paths.size() * 16;
+
+		if (target.getParent() != null) Files.createDirectories(target.getParent());
+		try (OutputStream file = Files.newOutputStream(target);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+			out.writeInt(magic);
+			out.writeInt(paths.size());
+			int offset = headerSize;
+			for (int i = 0; i < paths.size(); i++) {
+				out.writeUTF(paths.get(i));
+				out.writeInt(offset);
+				out.writeInt(records.get(i).length);
+				out.writeLong(modified.get(i));
+				offset += records.get(i).length;
+			}
+			for (byte[] record : records) out.write(record);
+		}
+		return paths;
+	}
+}
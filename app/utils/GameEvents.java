@@ -0,0 +1,103 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import structures.GameState;
+
+/**
+ * JDK Flight Recorder events for the game, so a recording can tie GC, lock and CPU
+ * time to the game action that caused them. Every event carries the session id of
+ * the match, the turn and a payload size.
+ *
+ * The events cost next to nothing when no recording is running: create, begin and
+ * end them as usual, and fill in the fields only when shouldCommit() is true.
+ *
+ *   GameEvents.DrawCard event = new GameEvents.DrawCard();
+ *   event.begin();
+ *   ...
+ *   if (event.shouldCommit()) { event.fill(deck.size()); event.commit(); }
+ *
+ * Enable them in a recording with e.g. -XX:StartFlightRecording, category "Game".
+ *
+ */
+public class GameEvents {
+
+	@Category("Game")
+	public static abstract class GameEvent extends Event {
+		@Label("Session Id")
+		public String sessionId;
+
+		@Label("Turn")
+		public int turn;
+
+		@Label("Payload Size")
+		@Description("Size of what the event handled, see the description of the event")
+		public int payloadSize;
+
+		/**
+		 * set the common fields from the current match
+		 */
+		public void fill(int payloadSize) {
+			GameState gameState = GameState.getInstance();
+			this.sessionId = gameState.getSessionId();
+			this.turn = gameState.getTurnCount();
+			this.payloadSize = payloadSize;
+		}
+	}
+
+	@Name("game.InboundFrame")
+	@Label("Inbound Frame")
+	@Description("A websocket frame decoded by WireCodec, the payload is its length in bytes")
+	@StackTrace(false)
+	public static class InboundFrame extends GameEvent {
+		@Label("Codec")
+		public String codec;
+	}
+
+	@Name("game.InboundAction")
+	@Label("Inbound Action")
+	@Description("An event from the front-end handled by its EventProcessor, the payload is the number of fields of the message (its bytes are in the game.InboundFrame before it)")
+	public static class InboundAction extends GameEvent {
+		@Label("Message Type")
+		public String messageType;
+	}
+
+	@Name("game.SwitchPlayer")
+	@Label("Switch Player")
+	public static class SwitchPlayer extends GameEvent {
+		@Label("To Human")
+		public boolean toHuman;
+	}
+
+	@Name("game.AIPhase")
+	@Label("AI Phase")
+	@Description("A phase of the AI turn: unitSearch, unitOperation or cardPlay")
+	public static class AIPhase extends GameEvent {
+		@Label("Phase")
+		public String phase;
+	}
+
+	@Name("game.DrawCard")
+	@Label("Draw Card")
+	@Description("Player.drawCard, the payload is the size of the deck")
+	public static class DrawCard extends GameEvent {
+		@Label("Human")
+		public boolean human;
+	}
+
+	@Name("game.CommandSent")
+	@Label("Command Sent")
+	@Description("A BasicCommands message delivered to the front-end, the payload is the number of characters of its JSON")
+	@StackTrace(false)
+	public static class CommandSent extends GameEvent {
+		@Label("Command")
+		public String command;
+
+		@Label("Coalescable")
+		public boolean coalescable;
+	}
+}
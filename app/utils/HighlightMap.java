@@ -0,0 +1,129 @@
+package utils;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import commands.BasicCommands;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.LegalActions;
+
+/**
+ * The highlights of the human player, sent to the front-end ahead of the clicks so it
+ * can highlight a unit or a card without asking the server. Built from LegalActions,
+ * one bitmap per unit and per card over the board: bit i is the tile at board index
+ * i (tiley * width + tilex), bit i % 8 of byte i / 8, base64 encoded.
+ *
+ * {
+ *   messagetype = "highlightMap"
+ *   width, height = <board size>
+ *   units = { "<tilex>,<tiley>": { move = <bitmap>, attack = <bitmap> } }
+ *   cards = { "<hand position 1 ~ 6>": <bitmap> }
+ * }
+ *
+ * The map is sent at the start of the player's turn (GameState.switchPlayer) and after
+ * an action that changed the board, the units or the mana (see changed), never for a
+ * heartbeat or a click that only selects. The server still checks the action when it
+ * is played.
+ *
+ */
+public class HighlightMap {
+
+	// the last map sent, nothing is sent while it does not change
+	private static String lastSent = null;
+	// the state has changed since the last map was built
+	private static volatile boolean changed = true;
+
+	/**
+	 * the board, a unit or the mana has changed, e.g. a unit moved or a card was played
+	 */
+	public static void changed() {
+		changed = true;
+	}
+
+	/**
+	 * after an action: send the map if the action changed the state
+	 */
+	public static void pushIfChanged() {
+		if (changed) push();
+	}
+
+	/**
+	 * send the map if the human player is on turn and it has changed
+	 */
+	public static void push() {
+		GameState gameState = GameState.getInstance();
+		Board board = gameState.getBoard();
+		if (board == null || gameState.getCurrentPlayer() == null || !gameState.getCurrentPlayer().isHumanOrAI()) {
+			return;
+		}
+		changed = false;
+
+		ObjectNode message = build(board, LegalActions.generate());
+		String encoded = message.toString();
+		if (encoded.equals(lastSent)) return;
+		lastSent = encoded;
+		BasicCommands.highlightMap(gameState.getOut(), message);
+	}
+
+	/**
+	 * forget the last map, e.g. for a new game
+	 */
+	public static void reset() {
+		lastSent = null;
+		changed = true;
+	}
+
+	/**
+	 * @param board
+	 * @param actions: from LegalActions
+	 * @return the highlightMap message
+	 */
+	public static ObjectNode build(Board board, int[] actions) {
+		Map<Integer, BitSet> moves = new LinkedHashMap<>();
+		Map<Integer, BitSet> attacks = new LinkedHashMap<>();
+		Map<Integer, BitSet> cards = new LinkedHashMap<>();
+
+		for (int action : actions) {
+			int type = LegalActions.type(action);
+			Map<Integer, BitSet> group;
+			if (type == LegalActions.MOVE) group = moves;
+			else if (type == LegalActions.ATTACK) group = attacks;
+			else group = cards;
+			group.computeIfAbsent(LegalActions.source(action), k -> new BitSet(board.size()))
+					.set(LegalActions.target(action));
+		}
+
+		ObjectNode message = Json.newObject();
+		message.put("messagetype", "highlightMap");
+		message.put("width", board.getWidth());
+		message.put("height", board.getHeight());
+
+		ObjectNode units = message.putObject("units");
+		BitSet none = new BitSet();
+		Set<Integer> sources = new LinkedHashSet<>(moves.keySet());
+		sources.addAll(attacks.keySet());
+		for (Integer source : sources) {
+			ObjectNode unit = units.putObject((source % board.getWidth()) + "," + (source / board.getWidth()));
+			unit.put("move", encode(moves.getOrDefault(source, none)));
+			unit.put("attack", encode(attacks.getOrDefault(source, none)));
+		}
+
+		ObjectNode hand = message.putObject("cards");
+		for (Map.Entry<Integer, BitSet> card : cards.entrySet()) {
+			hand.put(String.valueOf(card.getKey() + 1), encode(card.getValue()));
+		}
+		return message;
+	}
+
+	private static String encode(BitSet bits) {
+		return Base64.getEncoder().encodeToString(bits.toByteArray());
+	}
+}
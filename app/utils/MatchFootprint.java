@@ -0,0 +1,305 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/**
+ * Heap used by the match, by category: units (with their animation sets), tiles
+ * (with their texture lists), cards (decks and hands), callbacks, players and the rest
+ * of the game state. The sizes are estimated by walking the objects reachable from the
+ * GameState (compressed oops layout, 8 byte alignment); an object reached from two
+ * categories is counted in the first one. A category stops at the objects of the other
+ * categories, e.g. the owner of a unit is counted with the players.
+ *
+ * The last measure is the estimate of one more match for the heap budget: a new
+ * match is only admitted (see Admission) while the heap still in use after the last
+ * collection, plus that estimate, stays under heapBudget (a fraction of the max heap,
+ * -Dmatch.heapBudget=0.85). Using the heap after a collection, not the used heap,
+ * keeps garbage waiting to be collected from refusing matches.
+ *
+ */
+public class MatchFootprint {
+
+	public static double heapBudget = Double.parseDouble(System.getProperty("match.heapBudget", "0.85"));
+	// the estimate of a match until one has been measured
+	public static long defaultMatchBytes = 4L * 1024 * 1024;
+
+	private static final int OBJECT_HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	// fixed size of the JDK objects that are not walked (Random, UUID, ...)
+	private static final int OPAQUE_OBJECT = 24;
+	// node or entry of a collection
+	private static final int COLLECTION_ENTRY = 32;
+
+	// the classes that start a category, in walking order
+	private static final List<Class<?>> boundaries = List.of(
+			Unit.class, Tile.class, Card.class, Player.class, Board.class, GameState.class);
+
+	private static final Map<Class<?>, Field[]> fields = new HashMap<>();
+
+	/**
+	 * the footprint of a match
+	 */
+	public static class Report {
+		public final Map<String, Long> categories = new LinkedHashMap<>();
+		public final long measuredAt = System.currentTimeMillis();
+		public long total = 0;
+
+		void add(String category, long bytes) {
+			categories.put(category, bytes);
+			total += bytes;
+		}
+	}
+
+	private static volatile Report latest = null;
+
+	/**
+	 * measure the current match, on the thread that plays it
+	 * @return the report, null if there is no match
+	 */
+	public static Report measure() {
+		GameState gameState = GameState.getInstance();
+		Board board = gameState.getBoard();
+		if (board == null) return null;
+
+		try {
+			Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			Report report = new Report();
+
+			List<Object> units = new ArrayList<>();
+			for (Tile tile : board.getTiles()) {
+				if (tile != null && tile.getUnitOnTile() != null) units.add(tile.getUnitOnTile());
+			}
+			report.add("units", walk(units, visited));
+			report.add("tiles", walk(Arrays.asList((Object[]) board.getTiles()), visited));
+
+			List<Object> cards = new ArrayList<>();
+			List<Object> players = new ArrayList<>();
+			for (Player player : gameState.getPlayerContainers()) {
+				if (player == null) continue;
+				players.add(player);
+				cards.addAll(player.getDeck());
+				for (Card card : player.getCardsOnHand()) {
+					if (card != null) cards.add(card);
+				}
+			}
+			report.add("cards", walk(cards, visited));
+
+			List<Object> callbacks = new ArrayList<>();
+			callbacks.addAll(gameState.getCardSelectedCallbacks().values());
+			callbacks.addAll(gameState.getBeforeSummonCallbacks().values());
+			callbacks.addAll(gameState.getAvatarAttackCallbacks().values());
+			callbacks.addAll(gameState.getUnitDeathCallbacks().values());
+			callbacks.addAll(gameState.getSpellCastCallbacks().values());
+			report.add("callbacks", walk(callbacks, visited));
+
+			report.add("players", walk(players, visited));
+			report.add("state", walk(List.of(gameState, board), visited));
+
+			latest = report;
+			return report;
+		} catch (ConcurrentModificationException e) {
+			//the match changed while walking it, keep the last report
+			return latest;
+		}
+	}
+
+	public static Report getLatest() {
+		return latest;
+	}
+
+	/**
+	 * bytes one more match is expected to take
+	 */
+	public static long perMatchBytes() {
+		Report report = latest;
+		return report == null ? defaultMatchBytes : report.total;
+	}
+
+	public static long budgetBytes() {
+		return (long) (Runtime.getRuntime().maxMemory() * heapBudget);
+	}
+
+	/**
+	 * heap still in use after the last collection of each pool (what the collector
+	 * could not free), or the used heap if the JVM does not tell
+	 */
+	public static long liveHeap() {
+		long live = 0;
+		boolean known = false;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP) continue;
+			MemoryUsage afterGc = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+			if (afterGc != null) {
+				live += afterGc.getUsed();
+				known = true;
+			}
+		}
+		if (known) return live;
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * check the heap budget before a new match is started
+	 * @return boolean: true - there is room for one more match
+	 */
+	public static boolean admit() {
+		return liveHeap() + perMatchBytes() <= budgetBytes();
+	}
+
+	/**
+	 * the footprint and the budget, for the metrics endpoint
+	 */
+	public static ObjectNode toJson() {
+		ObjectNode json = Json.newObject();
+		ObjectNode heap = json.putObject("heap");
+		heap.put("live", liveHeap());
+		heap.put("max", Runtime.getRuntime().maxMemory());
+		heap.put("budget", budgetBytes());
+		json.put("perMatchEstimate", perMatchBytes());
+		json.put("admitting", admit());
+
+		Report report = latest;
+		if (report != null) {
+			ObjectNode match = json.putObject("match");
+			for (Map.Entry<String, Long> category : report.categories.entrySet()) {
+				match.put(category.getKey(), category.getValue());
+			}
+			match.put("total", report.total);
+			match.put("measuredAt", report.measuredAt);
+		}
+		return json;
+	}
+
+	/**
+	 * bytes reachable from the roots, not counting the visited objects and the
+	 * objects of the other categories
+	 */
+	private static long walk(Collection<?> roots, Set<Object> visited) {
+		long bytes = 0;
+		Deque<Object> stack = new ArrayDeque<>();
+		for (Object root : roots) {
+			if (root != null && visited.add(root)) stack.push(root);
+		}
+
+		while (!stack.isEmpty()) {
+			Object object = stack.pop();
+			Class<?> type = object.getClass();
+			String name = type.getName();
+
+			if (type.isArray()) {
+				int length = Array.getLength(object);
+				bytes += align(ARRAY_HEADER + (long) length * slotSize(type.getComponentType()));
+				if (!type.getComponentType().isPrimitive()) {
+					for (int i = 0; i < length; i++) follow(Array.get(object, i), visited, stack);
+				}
+			} else if (object instanceof String) {
+				bytes += align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + ((String) object).length());
+			} else if (object instanceof Enum || object instanceof Class) {
+				//shared constants
+			} else if (object instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) object;
+				bytes += OPAQUE_OBJECT + align(ARRAY_HEADER + (long) map.size() * 2 * REFERENCE)
+						+ (long) map.size() * COLLECTION_ENTRY;
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					follow(entry.getKey(), visited, stack);
+					follow(entry.getValue(), visited, stack);
+				}
+			} else if (object instanceof Collection) {
+				Collection<?> collection = (Collection<?>) object;
+				bytes += OPAQUE_OBJECT + align(ARRAY_HEADER + (long) collection.size() * REFERENCE)
+						+ (collection instanceof List ? 0 : (long) collection.size() * COLLECTION_ENTRY);
+				for (Object element : collection) follow(element, visited, stack);
+			} else if (name.startsWith("akka.") || name.startsWith("scala.")) {
+				//the actors are not part of the match
+			} else if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+					|| name.startsWith("sun.")) {
+				bytes += OPAQUE_OBJECT;
+			} else {
+				long size = OBJECT_HEADER;
+				for (Field field : fieldsOf(type)) {
+					size += slotSize(field.getType());
+					if (field.getType().isPrimitive()) continue;
+					try {
+						follow(field.get(object), visited, stack);
+					} catch (IllegalAccessException e) {
+						//not readable, not followed
+					}
+				}
+				bytes += align(size);
+			}
+		}
+		return bytes;
+	}
+
+	private static void follow(Object child, Set<Object> visited, Deque<Object> stack) {
+		if (child == null || visited.contains(child)) return;
+		for (Class<?> boundary : boundaries) {
+			if (boundary.isInstance(child)) return;
+		}
+		visited.add(child);
+		stack.push(child);
+	}
+
+	/**
+	 * the instance fields of a class and its super classes
+	 */
+	private static synchronized Field[] fieldsOf(Class<?> type) {
+		Field[] cached = fields.get(type);
+		if (cached != null) return cached;
+
+		List<Field> all = new ArrayList<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) continue;
+				//a field not open to reflection is not followed
+				if (field.trySetAccessible()) all.add(field);
+			}
+		}
+		cached = all.toArray(new Field[0]);
+		fields.put(type, cached);
+		return cached;
+	}
+
+	private static int slotSize(Class<?> type) {
+		if (type == long.class || type == double.class) return 8;
+		if (type == int.class || type == float.class) return 4;
+		if (type == short.class || type == char.class) return 2;
+		if (type == byte.class || type == boolean.class) return 1;
+		return REFERENCE;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
@@ -0,0 +1,86 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import akka.actor.ActorRef;
+import structures.GameState;
+
+/**
+ * Idle matches are moved out of the heap. The heartbeats of the front-end tell that
+ * the tab is still open; when no action has come for idleMillis, the match is encoded
+ * with MatchSnapshots into passivatedFile and the GameState is cleared, so the tiles,
+ * units and cards can be collected. The next action of the player restores it,
+ * without redrawing the board the front-end still shows.
+ *
+ * The idle time is set with -Dmatch.idleMillis (10 minutes by default).
+ *
+ */
+public class MatchPassivation {
+
+	public static long idleMillis = Long.getLong("match.idleMillis", 10 * 60 * 1000L);
+	public static String passivatedFile = "snapshots/idle.snap";
+
+	private static volatile long lastAction = System.currentTimeMillis();
+	private static volatile boolean passivated = false;
+
+	/**
+	 * a heartbeat: passivate the match if it has been idle for too long
+	 */
+	public static void onHeartbeat() {
+		GameState gameState = GameState.getInstance();
+		if (passivated || gameState.getBoard() == null) return;
+		if (System.currentTimeMillis() - lastAction < idleMillis) return;
+		// only between actions, not with a card or a unit selected
+		if (!gameState.getCurrentState().equals(GameState.CurrentState.READY)) return;
+
+		try {
+			Path file = Paths.get(passivatedFile);
+			if (file.getParent() != null) Files.createDirectories(file.getParent());
+			Files.write(file, MatchSnapshots.encode(gameState));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		ActorRef out = gameState.getOut();
+		gameState.clear();
+		gameState.setOut(out);
+		passivated = true;
+	}
+
+	/**
+	 * a message of the player: restore the match first if it was passivated
+	 * @param messageType: heartbeats are not actions, initalize starts a new match
+	 * @param out
+	 */
+	public static void onAction(String messageType, ActorRef out) {
+		if (messageType.equals("heartbeat")) return;
+		lastAction = System.currentTimeMillis();
+		if (!passivated) return;
+		passivated = false;
+		if (messageType.equals("initalize")) return;
+
+		try {
+			Path file = Paths.get(passivatedFile);
+			MatchSnapshots.restore(Files.readAllBytes(file), out, false);
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			e.printStackTrace();
+			ToolBox.logNotification("The match could not be restored");
+		}
+	}
+
+	/**
+	 * a new match: forget the passivated one
+	 */
+	public static void reset() {
+		lastAction = System.currentTimeMillis();
+		passivated = false;
+	}
+
+	public static boolean isPassivated() {
+		return passivated;
+	}
+}
@@ -0,0 +1,302 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import akka.actor.ActorRef;
+import commands.BasicCommands;
+import structures.GameState;
+import structures.basic.AIPlayer;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/**
+ * Compact binary snapshots of the match held by the GameState: board size, players,
+ * decks, hands, turn, units on the board and the registered callbacks. Cards and units
+ * are stored by id only, they are loaded again from the config files on restore.
+ *
+ * A snapshot is saved to the SnapshotLog at each turn boundary, so a match can be
+ * resumed by a new websocket after the server has been restarted.
+ *
+ */
+public class MatchSnapshots {
+
+	private static final int VERSION = 1;
+
+	// the snapshot log of this server, opened on first use
+	public static String snapshotFile = "snapshots/match.snap";
+	private static final int snapshotFileSize = 64 * 1024;
+	private static SnapshotLog log = null;
+
+	/**
+	 * Save the current match to the snapshot log
+	 */
+	public static void save() {
+		try {
+			SnapshotLog snapshotLog = getLog();
+			if (snapshotLog != null) {
+				snapshotLog.append(encode(GameState.getInstance()));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Forget the saved match, e.g. when the game is over
+	 */
+	public static void discard() {
+		SnapshotLog snapshotLog = getLog();
+		if (snapshotLog != null) {
+			snapshotLog.clear();
+		}
+	}
+
+	/**
+	 * Resume the saved match and send the full board to the front-end
+	 * @param out
+	 * @return boolean: true - resumed; false - there is no saved match
+	 */
+	public static boolean resume(ActorRef out) {
+		SnapshotLog snapshotLog = getLog();
+		if (snapshotLog == null) return false;
+
+		byte[] snapshot = snapshotLog.latest();
+		if (snapshot == null) return false;
+
+		try {
+			restore(snapshot, out);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Encode the match of a game state
+	 * @param gameState
+	 * @return the snapshot
+	 * @throws IOException
+	 */
+	public static byte[] encode(GameState gameState) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+		DataOutputStream data = new DataOutputStream(bytes);
+
+		Board board = gameState.getBoard();
+		Player[] players = gameState.getPlayerContainers();
+
+		data.writeByte(VERSION);
+		data.writeShort(board.getWidth());
+		data.writeShort(board.getHeight());
+		data.writeInt(gameState.getTurnCount());
+		data.writeByte(gameState.getCurrentPlayer() == players[0] ? 0 : 1);
+
+		// players, decks and hands
+		for (Player player : players) {
+			data.writeInt(player.getHealth());
+			data.writeInt(player.getMana());
+			data.writeShort(player.getDeck().size());
+			for (Card card : player.getDeck()) {
+				data.writeShort(card.getId());
+			}
+			for (Card card : player.getCardsOnHand()) {
+				data.writeShort(card == null ? -1 : card.getId());
+			}
+		}
+
+		// callback bindings
+		for (Map<String, Function<Integer, Boolean>> callbacks : callbackMaps(gameState)) {
+			data.writeShort(callbacks.size());
+			for (String key : callbacks.keySet()) {
+				data.writeUTF(key);
+			}
+		}
+
+		// units on the board
+		List<Unit> units = new ArrayList<>();
+		for (Tile tile : board.getTiles()) {
+			if (tile != null && tile.getUnitOnTile() != null) {
+				units.add(tile.getUnitOnTile());
+			}
+		}
+		data.writeShort(units.size());
+		for (Unit unit : units) {
+			data.writeShort(unit.getId());
+			data.writeByte(unit.getOwner() == players[0] ? 0 : 1);
+			data.writeShort(unit.getPosition().getTilex());
+			data.writeShort(unit.getPosition().getTiley());
+			data.writeInt(unit.getHealth());
+			data.writeInt(unit.getAttack());
+			data.writeInt(unit.getMaxHealth());
+			data.writeByte(unit.getCurrentState().ordinal());
+			data.writeByte(unit.getAttackNum());
+			data.writeByte(unit.getMoveNum());
+			data.writeBoolean(unit.isProvoked());
+		}
+
+		data.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Rebuild the game state from a snapshot and draw everything on the front-end
+	 * @param snapshot
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void restore(byte[] snapshot, ActorRef out) throws IOException {
+		restore(snapshot, out, true);
+	}
+
+	/**
+	 * Rebuild the game state from a snapshot
+	 * @param snapshot
+	 * @param out
+	 * @param redraw: false if the front-end still shows the match
+	 * @throws IOException
+	 */
+	public static void restore(byte[] snapshot, ActorRef out, boolean redraw) throws IOException {
+		DataInputStream data = new DataInputStream(new ByteArrayInputStream(snapshot));
+		GameState gameState = GameState.getInstance();
+
+		if (data.readByte() != VERSION) {
+			throw new IOException("Unknown snapshot version");
+		}
+
+		gameState.clear();
+		gameState.setOut(out);
+
+		// 1.board
+		Board board = new Board(data.readShort(), data.readShort());
+		gameState.setBoard(board);
+		for (int i = 0; i < board.getWidth(); i++) {
+			for (int j = 0; j < board.getHeight(); j++) {
+				Tile tile = BasicObjectBuilders.loadTile(i, j);
+				board.setTile(tile);
+				gameState.add(tile);
+				if (redraw) BasicCommands.drawTile(out, tile, 0);
+			}
+		}
+
+		int turnCount = data.readInt();
+		int currentPlayerIndex = data.readByte();
+
+		// 2.players, decks and hands
+		Player[] players = new Player[2];
+		for (int p = 0; p < 2; p++) {
+			int health = data.readInt();
+			int mana = data.readInt();
+			players[p] = p == 0 ? new Player(health, mana) : new AIPlayer(health, mana);
+
+			int deckSize = data.readShort();
+			for (int i = 0; i < deckSize; i++) {
+				players[p].setDeck(loadCard(data.readShort()));
+			}
+			Card[] hand = players[p].getCardsOnHand();
+			for (int i = 0; i < hand.length; i++) {
+				int id = data.readShort();
+				hand[i] = id < 0 ? null : loadCard(id);
+			}
+		}
+		gameState.restorePlayers(players[0], players[1], currentPlayerIndex, turnCount);
+
+		// 3.callbacks, the bindings are fixed by card id so register them all and keep the saved ones
+		gameState.registerCallbacks();
+		for (Map<String, Function<Integer, Boolean>> callbacks : callbackMaps(gameState)) {
+			Set<String> keys = new HashSet<>();
+			int count = data.readShort();
+			for (int i = 0; i < count; i++) {
+				keys.add(data.readUTF());
+			}
+			callbacks.keySet().retainAll(keys);
+		}
+
+		// 4.units
+		int unitCount = data.readShort();
+		for (int i = 0; i < unitCount; i++) {
+			int id = data.readShort();
+			Player owner = players[data.readByte()];
+			Tile tile = board.getTile(data.readShort(), data.readShort());
+
+			Unit unit;
+			if (id == ToolBox.humanAvatarId || id == ToolBox.AIAvatarID) {
+				unit = BasicObjectBuilders.loadUnit(
+						id == ToolBox.humanAvatarId ? StaticConfFiles.humanAvatar : StaticConfFiles.aiAvatar,
+						id, Unit.class);
+				gameState.add(unit);
+			}
+			else {
+				// registers the unit and sets its abilities
+				unit = loadCard(id).cardToUnit();
+			}
+
+			unit.setOwner(owner);
+			unit.setPositionByTile(tile);
+			tile.setUnitOnTile(unit);
+			unit.setHealth(data.readInt());
+			unit.setAttack(data.readInt());
+			unit.setMaxHealth(data.readInt());
+			unit.setCurrentState(Unit.UnitState.values()[data.readByte()]);
+			unit.setAttackNum(data.readByte());
+			unit.setMoveNum(data.readByte());
+			unit.setProvoked(data.readBoolean());
+
+			if (redraw) {
+				BasicCommands.drawUnit(out, unit, tile);
+				BasicCommands.setUnitHealth(out, unit, unit.getHealth());
+				BasicCommands.setUnitAttack(out, unit, unit.getAttack());
+			}
+		}
+		if (!redraw) return;
+
+		// 5.player information and the hand of human player
+		BasicCommands.setPlayer1Health(out, players[0]);
+		BasicCommands.setPlayer1Mana(out, players[0]);
+		BasicCommands.setPlayer2Health(out, players[1]);
+		BasicCommands.setPlayer2Mana(out, players[1]);
+		Card[] hand = players[0].getCardsOnHand();
+		for (int i = 0; i < hand.length; i++) {
+			if (hand[i] != null) {
+				BasicCommands.drawCard(out, hand[i], i + 1, 0);
+			}
+		}
+	}
+
+	private static Card loadCard(int id) {
+		return BasicObjectBuilders.loadCard(StaticConfFiles.cardConf(id), id, Card.class);
+	}
+
+	private static List<Map<String, Function<Integer, Boolean>>> callbackMaps(GameState gameState) {
+		List<Map<String, Function<Integer, Boolean>>> maps = new ArrayList<>();
+		maps.add(gameState.getCardSelectedCallbacks());
+		maps.add(gameState.getBeforeSummonCallbacks());
+		maps.add(gameState.getAvatarAttackCallbacks());
+		maps.add(gameState.getUnitDeathCallbacks());
+		maps.add(gameState.getSpellCastCallbacks());
+		return maps;
+	}
+
+	private static synchronized SnapshotLog getLog() {
+		if (log == null) {
+			try {
+				log = new SnapshotLog(snapshotFile, snapshotFileSize);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return log;
+	}
+}
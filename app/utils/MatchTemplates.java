@@ -0,0 +1,154 @@
+package utils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import commands.BasicCommands;
+import play.libs.Json;
+import structures.basic.AIPlayer;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/**
+ * Initial matches built ahead on a background thread, so that a new game does not
+ * wait for the board, the 20 cards and the 2 avatars to be loaded. A template holds
+ * the board with the avatars on it, both players with their decks (in config order,
+ * Initalize shuffles them) and the initial board as one "batch" command, already
+ * encoded to JSON.
+ *
+ * A template is used by one match only; taking one queues the build of the next.
+ * poolSize templates of the default board are kept (-Dmatch.templates=2); a match on
+ * another size builds its template when it starts, without pooling.
+ *
+ */
+public class MatchTemplates {
+
+	public static int poolSize = Integer.getInteger("match.templates", 2);
+
+	private static final BlockingQueue<Template> pool = new LinkedBlockingQueue<>();
+	private static final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "match-templates");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * an initial match, not registered on the GameState yet
+	 */
+	public static class Template {
+		public final Board board;
+		public final Player humanPlayer;
+		public final AIPlayer aiPlayer;
+		public final Unit humanAvatar;
+		public final Unit aiAvatar;
+		// drawTile of every tile, then drawUnit, setUnitHealth and setUnitAttack of both avatars
+		public final ObjectNode batch;
+
+		Template(Board board, Player humanPlayer, AIPlayer aiPlayer, Unit humanAvatar, Unit aiAvatar, ObjectNode batch) {
+			this.board = board;
+			this.humanPlayer = humanPlayer;
+			this.aiPlayer = aiPlayer;
+			this.humanAvatar = humanAvatar;
+			this.aiAvatar = aiAvatar;
+			this.batch = batch;
+		}
+	}
+
+	/**
+	 * take a template, or build one now if the pool is empty or the board is not the default
+	 * @param width: a valid size, see Board.isValidSize
+	 * @param height
+	 * @return the template, null if it could not be built
+	 */
+	public static Template take(int width, int height) {
+		if (width != Board.DEFAULT_WIDTH || height != Board.DEFAULT_HEIGHT) return build(width, height);
+
+		Template template = pool.poll();
+		refill();
+		if (template == null) template = build(width, height);
+		return template;
+	}
+
+	/**
+	 * fill the pool in the background, e.g. at start up
+	 */
+	public static void refill() {
+		builder.execute(() -> {
+			while (pool.size() < poolSize) {
+				Template template = build(Board.DEFAULT_WIDTH, Board.DEFAULT_HEIGHT);
+				if (template == null) return;
+				pool.offer(template);
+			}
+		});
+	}
+
+	public static int available() {
+		return pool.size();
+	}
+
+	/**
+	 * build a template. Nothing here may send a command: the GameState belongs to the
+	 * match being played, so the avatars' health, which is shown on the players, is set
+	 * by Initalize
+	 */
+	private static Template build(int width, int height) {
+		try {
+			ObjectNode batch = Json.newObject();
+			batch.put("messagetype", "batch");
+			ArrayNode commands = batch.putArray("commands");
+
+			// 1.tiles
+			Board board = new Board(width, height);
+			for (int i = 0; i < width; i++) {
+				for (int j = 0; j < height; j++) {
+					Tile tile = BasicObjectBuilders.loadTile(i, j);
+					board.setTile(tile);
+					commands.add(BasicCommands.drawTileMessage(tile, 0));
+				}
+			}
+
+			// 2.players and decks
+			Player humanPlayer = new Player(20, 0);
+			AIPlayer aiPlayer = new AIPlayer(20, 0);
+			for (int i = 0; i < 10; i++) {
+				humanPlayer.setDeck(BasicObjectBuilders.loadCard(StaticConfFiles.deck1Cards[i], i, Card.class));
+			}
+			for (int i = 0; i < 10; i++) {
+				aiPlayer.setDeck(BasicObjectBuilders.loadCard(StaticConfFiles.deck2Cards[i], i + 10, Card.class));
+			}
+
+			// 3.avatars
+			Unit humanAvatar = avatar(StaticConfFiles.humanAvatar, ToolBox.humanAvatarId, humanPlayer,
+					board.getTile(1, height / 2), commands);
+			Unit aiAvatar = avatar(StaticConfFiles.aiAvatar, ToolBox.AIAvatarID, aiPlayer,
+					board.getTile(width - 2, height / 2), commands);
+
+			return new Template(board, humanPlayer, aiPlayer, humanAvatar, aiAvatar, batch);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private static Unit avatar(String configFile, int id, Player owner, Tile tile, ArrayNode commands) throws Exception {
+		Unit avatar = BasicObjectBuilders.loadUnit(configFile, id, Unit.class);
+		avatar.setOwner(owner);
+		avatar.setAttack(2);
+		avatar.setMaxHealth(20);
+		avatar.setPositionByTile(tile);
+		tile.setUnitOnTile(avatar);
+
+		commands.add(BasicCommands.drawUnitMessage(avatar, tile));
+		commands.add(BasicCommands.setUnitHealthMessage(avatar, 20));
+		commands.add(BasicCommands.setUnitAttackMessage(avatar, 2));
+		return avatar;
+	}
+}
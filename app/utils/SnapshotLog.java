@@ -0,0 +1,145 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A local append-only file of match snapshots, written through a memory mapping so
+ * that an append is a plain memory copy. The mapped pages belong to the OS, so the
+ * records survive when the JVM is stopped (e.g. during a deploy).
+ *
+ * Layout: a header [magic, offset of the latest record, write position] followed by
+ * records [length, crc32, bytes]. The header is updated after the record is written,
+ * so a half written record is never read back. Only the latest record is needed to
+ * resume, so when the file is full the log starts again from the first record slot;
+ * if the new record would reach into the latest one there, the file grows instead.
+ *
+ */
+public class SnapshotLog implements Closeable {
+
+	private static final int MAGIC = 0x44534e50; // "DSNP"
+	private static final int HEADER_SIZE = 12;
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+
+	/**
+	 * Open (or create) a snapshot log
+	 * @param path - the file of the log
+	 * @param capacity - initial size of the mapping in bytes, it grows if a record does not fit
+	 * @throws IOException
+	 */
+	public SnapshotLog(String path, int capacity) throws IOException {
+		File logFile = new File(path);
+		if (logFile.getParentFile() != null) {
+			logFile.getParentFile().mkdirs();
+		}
+		this.file = new RandomAccessFile(logFile, "rw");
+		this.channel = file.getChannel();
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+
+		// a new (or foreign) file, write an empty header
+		if (buffer.getInt(0) != MAGIC) {
+			buffer.putInt(0, MAGIC);
+			clear();
+		}
+	}
+
+	/**
+	 * Append a record, it becomes the latest record
+	 * @param record
+	 * @throws IOException
+	 */
+	public synchronized void append(byte[] record) throws IOException {
+		int needed = RECORD_HEADER_SIZE + record.length;
+		int position = writePosition();
+
+		if (position + needed > buffer.capacity()) {
+			// the older records are not needed any more, start from the beginning again,
+			// unless the new record would overwrite the latest one before it is published
+			int latest = buffer.getInt(4);
+			if (latest < HEADER_SIZE || HEADER_SIZE + needed <= latest) {
+				position = HEADER_SIZE;
+			} else {
+				grow(position + needed);
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(record, 0, record.length);
+
+		buffer.putInt(position, record.length);
+		buffer.putInt(position + 4, (int) crc.getValue());
+		buffer.position(position + RECORD_HEADER_SIZE);
+		buffer.put(record);
+
+		// publish the record
+		buffer.putInt(8, position + needed);
+		buffer.putInt(4, position);
+	}
+
+	/**
+	 * @return the latest record, or null if the log is empty or the record is damaged
+	 */
+	public synchronized byte[] latest() {
+		int position = buffer.getInt(4);
+		if (position < HEADER_SIZE) {
+			return null;
+		}
+
+		int length = buffer.getInt(position);
+		if (length < 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+			return null;
+		}
+
+		byte[] record = new byte[length];
+		buffer.position(position + RECORD_HEADER_SIZE);
+		buffer.get(record);
+
+		CRC32 crc = new CRC32();
+		crc.update(record, 0, record.length);
+		if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+			return null;
+		}
+		return record;
+	}
+
+	/**
+	 * Forget all records
+	 */
+	public synchronized void clear() {
+		buffer.putInt(4, 0);
+		buffer.putInt(8, HEADER_SIZE);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		buffer.force();
+		channel.close();
+		file.close();
+	}
+
+	private int writePosition() {
+		int position = buffer.getInt(8);
+		if (position < HEADER_SIZE || position > buffer.capacity()) {
+			return HEADER_SIZE;
+		}
+		return position;
+	}
+
+	private void grow(int minCapacity) throws IOException {
+		int capacity = buffer.capacity();
+		while (capacity < minCapacity) {
+			capacity *= 2;
+		}
+		buffer.force();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+}
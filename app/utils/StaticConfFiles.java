@@ -1,5 +1,9 @@
 package utils;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This is a utility class that just has short-cuts to the location of various
  * config files. 
@@ -63,6 +67,62 @@ public class StaticConfFiles {
 	public final static String u_serpenti = "conf/gameconfs/units/serpenti.json";
 	public final static String u_windshrike = "conf/gameconfs/units/windshrike.json";
 	
+	// Decks, the index of a card in its deck gives its id (deck 1: 0 ~ 9, deck 2: 10 ~ 19)
+	public final static String[] deck1Cards = {
+			c_comodo_charger,
+			c_hailstone_golem,
+			c_pureblade_enforcer,
+			c_azure_herald,
+			c_silverguard_knight,
+			c_azurite_lion,
+			c_fire_spitter,
+			c_ironcliff_guardian,
+			c_truestrike,
+			c_sundrop_elixir
+	};
+
+	public final static String[] deck2Cards = {
+			c_planar_scout,
+			c_rock_pulveriser,
+			c_pyromancer,
+			c_bloodshard_golem,
+			c_blaze_hound,
+			c_windshrike,
+			c_hailstone_golem,
+			c_serpenti,
+			c_staff_of_ykir,
+			c_entropic_decay
+	};
+
+	/**
+	 * Config file of the card with the given id
+	 * @param id
+	 * @return the file, or null if there is no such card
+	 */
+	public static String cardConf(int id) {
+		if (id >= 0 && id < deck1Cards.length) return deck1Cards[id];
+		if (id >= deck1Cards.length && id < deck1Cards.length + deck2Cards.length) return deck2Cards[id - deck1Cards.length];
+		return null;
+	}
+
+	// unit config of each creature card name, e.g. "Azure Herald" -> u_azure_herald
+	private final static Map<String, String> cardUnits = new ConcurrentHashMap<>();
+
+	/**
+	 * Config file of the unit a creature card summons: the first two words of the card
+	 * name, lower case and joined by "_". Worked out once per card name.
+	 * @param cardname
+	 * @return the file
+	 */
+	public static String unitConf(String cardname) {
+		return cardUnits.computeIfAbsent(cardname, name -> {
+			String[] words = name.toLowerCase(Locale.ROOT).split(" ");
+			String unit = words[0];
+			if (words.length > 1 && !words[1].isEmpty()) unit += "_" + words[1];
+			return "conf/gameconfs/units/" + unit + ".json";
+		});
+	}
+
 	// Effects
 	public final static String f1_inmolation = "conf/gameconfs/effects/f1_inmolation.json";
 	public final static String f1_buff = "conf/gameconfs/effects/f1_buff.json";
@@ -19,6 +19,10 @@ public class ToolBox {
     public static final int AIAvatarID = 100;
     public static final int delay = 500;
 
+    //the game waits for the front-end to play its animations.
+    //turn it off when there is no browser, e.g. in benchmarks
+    public static boolean pacing = true;
+
 
     //display tips for human player
     public static void logNotification(String message){
@@ -26,6 +30,22 @@ public class ToolBox {
     }
 
 
+    /**
+     * wait for the front-end
+     * @param millis: time to wait
+     */
+    public static void pause(long millis){
+        //what the front-end is waited for has to be sent first
+        BasicCommands.flush();
+        if (!pacing || millis <= 0){
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        }catch (InterruptedException e){e.printStackTrace();}
+    }
+
+
     public static<T> int findObjectInArray(T[] _6Elements, T element  ){
         for (int i = 0; i < _6Elements.length; i++) {
             if (_6Elements[i] == element){
@@ -0,0 +1,115 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+
+/**
+ * Encoding of the websocket traffic. JSON text is the default; a client can ask for
+ * Smile (binary JSON from jackson-dataformat-smile) instead. Smile keeps back-references
+ * to field names and short string values already written in the same message, so the
+ * texture urls repeated across a tile or a unit animation set are only sent once.
+ *
+ * Both encodings carry the same JsonNode, so the event processors and BasicCommands
+ * do not change.
+ *
+ * This is the server side only: the page has no Smile decoder and always speaks JSON.
+ * Smile is off unless the server is started with -Dmatch.smile=true, for clients that
+ * can decode it (e.g. a native client or a load generator).
+ *
+ */
+public class WireCodec {
+
+	// value of the codec query parameter on the websocket url
+	public static final String smile = "smile";
+
+	// Smile is offered only when enabled
+	public static boolean enabled = Boolean.getBoolean("match.smile");
+
+	private static final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()
+			.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+
+	/**
+	 * @param codec: the codec query parameter, may be null
+	 * @return true if Smile is enabled and the client asked for it
+	 */
+	public static boolean isSmile(String codec) {
+		return enabled && smile.equalsIgnoreCase(codec);
+	}
+
+	public static byte[] toSmile(JsonNode message) throws IOException {
+		return smileMapper.writeValueAsBytes(message);
+	}
+
+	/**
+	 * parse a Smile message straight from the received bytes
+	 */
+	public static JsonNode fromSmile(byte[] data) throws IOException {
+		return smileMapper.readTree(data);
+	}
+
+	public static String toJson(JsonNode message) throws IOException {
+		return Codecs.mapper().writeValueAsString(message);
+	}
+
+	public static JsonNode fromJson(String data) throws IOException {
+		return Codecs.mapper().readTree(data);
+	}
+
+	public static JsonNode fromJson(byte[] data) throws IOException {
+		return Codecs.mapper().readTree(data);
+	}
+
+	/**
+	 * parse a Smile frame of the websocket, recording its size (JFR, see GameEvents.InboundFrame)
+	 */
+	public static JsonNode readSmileFrame(byte[] data) throws IOException {
+		GameEvents.InboundFrame event = new GameEvents.InboundFrame();
+		event.begin();
+		JsonNode message = fromSmile(data);
+		if (event.shouldCommit()) {
+			event.fill(data.length);
+			event.codec = smile;
+			event.commit();
+		}
+		return message;
+	}
+
+	/**
+	 * parse a JSON text frame of the websocket, recording its size (JFR, see GameEvents.InboundFrame)
+	 */
+	public static JsonNode readJsonFrame(String data) throws IOException {
+		GameEvents.InboundFrame event = new GameEvents.InboundFrame();
+		event.begin();
+		JsonNode message = fromJson(data);
+		if (event.shouldCommit()) {
+			event.fill(utf8Length(data));
+			event.codec = "json";
+			event.commit();
+		}
+		return message;
+	}
+
+	/**
+	 * bytes of the text in UTF-8, as sent in a text frame, without encoding it
+	 */
+	static int utf8Length(String text) {
+		int bytes = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) bytes += 1;
+			else if (c < 0x800) bytes += 2;
+			else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			}
+			else bytes += 3;
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,29 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import structures.GameState;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full AIPlayer turn, from the end of the human turn until the human is on turn again
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AITurnBenchmark {
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        Matches.start(9,5,true);
+    }
+
+    @Benchmark
+    public int aiTurn(){
+        GameState.getInstance().switchPlayer();
+        return GameState.getInstance().getTurnCount();
+    }
+}
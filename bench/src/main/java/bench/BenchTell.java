@@ -0,0 +1,17 @@
+package bench;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.DummyTell;
+
+/**
+ * Stand-in for the browser, like SimuTell in the tests. It only counts the
+ * commands so the benchmarks run without a websocket.
+ */
+public class BenchTell implements DummyTell {
+    public long commands = 0;
+
+    @Override
+    public void tell(ObjectNode message) {
+        commands++;
+    }
+}
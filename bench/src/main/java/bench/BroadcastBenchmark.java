@@ -0,0 +1,67 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import structures.GameState;
+import structures.basic.LegalActions;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of GameState.broadcastEvent: fan-out to every observer, and an event for one tile position
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"9x5","16x16","32x32"})
+    public String board;
+
+    private Map<String,Object> unitBeReady;
+    private Map<String,Object> tileFanOut;
+    private Map<String,Object> oneTile;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(board,false);
+
+        unitBeReady = new HashMap<>();
+        unitBeReady.put("type","unitBeReady");
+
+        //no airdrop, so every tile is visited and nothing else happens
+        tileFanOut = new HashMap<>();
+        tileFanOut.put("type","validSummonRangeHighlight");
+
+        oneTile = new HashMap<>();
+        oneTile.put("type","deleteUnit");
+        oneTile.put("tilex",0);
+        oneTile.put("tiley",0);
+    }
+
+    @Benchmark
+    public void unitFanOut(){
+        GameState.getInstance().broadcastEvent(Unit.class,unitBeReady);
+    }
+
+    @Benchmark
+    public void tileFanOut(){
+        GameState.getInstance().broadcastEvent(Tile.class,tileFanOut);
+    }
+
+    @Benchmark
+    public void tilePosition(){
+        GameState.getInstance().broadcastEvent(Tile.class,oneTile);
+    }
+
+    @Benchmark
+    public int[] legalActions(){
+        return LegalActions.generate();
+    }
+}
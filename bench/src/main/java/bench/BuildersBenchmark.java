@@ -0,0 +1,43 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import structures.basic.Card;
+import structures.basic.EffectAnimation;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of loading the game objects from conf/gameconfs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildersBenchmark {
+
+    @Benchmark
+    public Card loadCard(){
+        return BasicObjectBuilders.loadCard(StaticConfFiles.c_azure_herald,3,Card.class);
+    }
+
+    @Benchmark
+    public Unit loadUnit(){
+        return BasicObjectBuilders.loadUnit(StaticConfFiles.humanAvatar,99,Unit.class);
+    }
+
+    @Benchmark
+    public Tile loadTile(){
+        return BasicObjectBuilders.loadTile(3,2);
+    }
+
+    @Benchmark
+    public EffectAnimation loadEffect(){
+        return BasicObjectBuilders.loadEffect(StaticConfFiles.f1_summon);
+    }
+}
@@ -0,0 +1,123 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import play.libs.Json;
+import structures.GameState;
+import utils.WireCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON text against Smile for the websocket traffic: the commands sent during the
+ * opening of a match and during one AI turn are recorded, then encoded and parsed
+ * with both codecs. The bytes per turn are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    private List<ObjectNode> turn;
+    private List<byte[]> turnJson;
+    private List<byte[]> turnSmile;
+    private byte[] clickJson;
+    private byte[] clickSmile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        //record the opening of a match
+        List<ObjectNode> opening = new ArrayList<>();
+        Matches.start(9,5,true,opening::add);
+
+        //record one AI turn
+        turn = new ArrayList<>();
+        BasicCommands.altTell = turn::add;
+        GameState.getInstance().switchPlayer();
+        BasicCommands.altTell = Matches.tell;
+
+        turnJson = new ArrayList<>();
+        turnSmile = new ArrayList<>();
+        for (ObjectNode message : turn) {
+            turnJson.add(WireCodec.toJson(message).getBytes(StandardCharsets.UTF_8));
+            turnSmile.add(WireCodec.toSmile(message));
+        }
+
+        ObjectNode click = Json.newObject();
+        click.put("messagetype","tileclicked");
+        click.put("tilex",4);
+        click.put("tiley",2);
+        clickJson = WireCodec.toJson(click).getBytes(StandardCharsets.UTF_8);
+        clickSmile = WireCodec.toSmile(click);
+
+        System.out.println();
+        System.out.println("opening: " + opening.size() + " messages, json " + jsonBytes(opening)
+                + " bytes, smile " + smileBytes(opening) + " bytes");
+        System.out.println("AI turn: " + turn.size() + " messages, json " + jsonBytes(turn)
+                + " bytes, smile " + smileBytes(turn) + " bytes");
+    }
+
+    private static long jsonBytes(List<ObjectNode> messages) throws IOException {
+        long bytes = 0;
+        for (ObjectNode message : messages) {
+            bytes += WireCodec.toJson(message).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+
+    private static long smileBytes(List<ObjectNode> messages) throws IOException {
+        long bytes = 0;
+        for (ObjectNode message : messages) {
+            bytes += WireCodec.toSmile(message).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public void encodeTurnJson(Blackhole blackhole) throws IOException {
+        for (ObjectNode message : turn) {
+            blackhole.consume(WireCodec.toJson(message));
+        }
+    }
+
+    @Benchmark
+    public void encodeTurnSmile(Blackhole blackhole) throws IOException {
+        for (ObjectNode message : turn) {
+            blackhole.consume(WireCodec.toSmile(message));
+        }
+    }
+
+    @Benchmark
+    public void parseTurnJson(Blackhole blackhole) throws IOException {
+        for (byte[] data : turnJson) {
+            blackhole.consume(WireCodec.fromJson(data));
+        }
+    }
+
+    @Benchmark
+    public void parseTurnSmile(Blackhole blackhole) throws IOException {
+        for (byte[] data : turnSmile) {
+            blackhole.consume(WireCodec.fromSmile(data));
+        }
+    }
+
+    @Benchmark
+    public JsonNode parseClickJson() throws IOException {
+        return WireCodec.fromJson(clickJson);
+    }
+
+    @Benchmark
+    public JsonNode parseClickSmile() throws IOException {
+        return WireCodec.fromSmile(clickSmile);
+    }
+}
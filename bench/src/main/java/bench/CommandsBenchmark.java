@@ -0,0 +1,61 @@
+package bench;
+
+import commands.BasicCommands;
+import org.openjdk.jmh.annotations.*;
+import structures.GameState;
+import structures.basic.Card;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of the BasicCommands sent to the front-end.
+ * Each command is flushed, so the CommandQueue does not merge the repeated ones
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandsBenchmark {
+
+    private Tile tile;
+    private Unit unit;
+    private Card card;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(9,5,false);
+        tile = GameState.getInstance().getBoard().getTile(1,2);
+        unit = tile.getUnitOnTile();
+        card = BasicObjectBuilders.loadCard(StaticConfFiles.c_azure_herald,3,Card.class);
+    }
+
+    @Benchmark
+    public void drawTile(){
+        BasicCommands.drawTile(null,tile,1);
+        BasicCommands.flush();
+    }
+
+    @Benchmark
+    public void drawUnit(){
+        BasicCommands.drawUnit(null,unit,tile);
+        BasicCommands.flush();
+    }
+
+    @Benchmark
+    public void setUnitHealth(){
+        BasicCommands.setUnitHealth(null,unit,20);
+        BasicCommands.flush();
+    }
+
+    @Benchmark
+    public void drawCard(){
+        BasicCommands.drawCard(null,card,1,0);
+        BasicCommands.flush();
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import structures.basic.Card;
+import structures.basic.Player;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Player.drawCard against the size of the deck
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawCardBenchmark {
+
+    @Param({"10","1000","100000"})
+    public int deckSize;
+
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(9,5,false);
+
+        //a player which is not in the match, so nothing is sent to the front-end
+        player = new Player(20,0);
+        for (int i = 0; i < deckSize; i++) {
+            player.setDeck(BasicObjectBuilders.loadCard(StaticConfFiles.cardConf(i % 20),i,Card.class));
+        }
+    }
+
+    @Benchmark
+    public Card drawCard(){
+        player.drawCard();
+
+        //put the card back, so the deck keeps its size
+        Card card = player.getCardsOnHand()[0];
+        player.getCardsOnHand()[0] = null;
+        player.setDeck(card);
+        return card;
+    }
+}
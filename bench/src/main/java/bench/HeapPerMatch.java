@@ -0,0 +1,60 @@
+package bench;
+
+import structures.GameState;
+import utils.MatchFootprint;
+
+import java.util.Map;
+
+/**
+ * Heap taken by one match, for a few board sizes: the heap held after a full
+ * collection with and without the match, next to the MatchFootprint estimate by
+ * category. From that it prints how many matches the heap budget would admit.
+ *
+ * The server keeps one GameState per JVM, so matches cannot be held side by side;
+ * the number of matches is projected from the heap of one.
+ *
+ *     bench.HeapPerMatch [board sizes, e.g. 9x5,18x10]
+ */
+public class HeapPerMatch {
+
+    public static void main(String[] args) {
+        String[] boards = (args.length > 0 ? args[0] : "9x5,18x10,36x20").split(",");
+
+        //load the classes and the configs once
+        Matches.start(9, 5, true);
+
+        System.out.println("board   heap delta  estimate  units  tiles  cards  callbacks  players  state  matches in budget");
+        for (String board : boards) {
+            GameState.getInstance().clear();
+            long before = liveAfterGc();
+
+            Matches.start(board, true);
+            long after = liveAfterGc();
+            MatchFootprint.Report report = MatchFootprint.measure();
+
+            Map<String, Long> c = report.categories;
+            long delta = Math.max(after - before, 1);
+            System.out.println(String.format("%-7s %10s %9s %6s %6s %6s %10s %8s %6s %18d",
+                    board, kb(delta), kb(report.total), kb(c.get("units")), kb(c.get("tiles")),
+                    kb(c.get("cards")), kb(c.get("callbacks")), kb(c.get("players")), kb(c.get("state")),
+                    (MatchFootprint.budgetBytes() - before) / delta));
+        }
+    }
+
+    private static long liveAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String kb(long bytes) {
+        return (bytes / 1024) + "K";
+    }
+}
@@ -0,0 +1,386 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.net.http.WebSocketHandshakeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load generator for the game websocket. It opens N connections to a
+ * running server, does the actorReady / initalize handshake like the game page and
+ * then plays clicks: legal ones picked from the tiles the server highlights after a
+ * unit or card is clicked, or random tiles, cards and end turns.
+ *
+ * For each N it reports the connections that got a match, the setup time (including
+ * any wait in the admission queue), how many were queued and how many 503 answers
+ * they got, the latency from a click to the first command back (percentiles), the
+ * commands (frames) per second received and the CPU load of the host, so run it on
+ * the same machine as the server.
+ *
+ * The server admits -Dmatch.max matches at once (1 by default) and queues
+ * -Dmatch.maxWaiting more (8): a queued connection waits for its actorReady while the
+ * others play, and one beyond the queue is refused with 503 and Retry-After, which is
+ * honoured up to maxRetries times. To load N matches at once, start the server with
+ * -Dmatch.max=N; the server keeps one GameState per JVM, so those matches overwrite
+ * each other and only the websocket and actor path is measured.
+ *
+ *     bench.LoadGenerator [url] [connections, e.g. 1,5,10] [clicks per connection] [legal|random]
+ */
+public class LoadGenerator {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    // longest wait for a click to be answered
+    private static final long answerTimeoutMillis = 5000;
+    // pause between two clicks, like a fast player
+    private static final long thinkMillis = 200;
+    // longest wait for a match, in the admission queue
+    private static final long queueTimeoutMillis = 10 * 60 * 1000;
+    // attempts after a 503
+    private static final int maxRetries = 3;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "ws://localhost:9000/socket";
+        String[] steps = (args.length > 1 ? args[1] : "1,5,10").split(",");
+        int clicks = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        boolean legal = args.length <= 3 || !args[3].equals("random");
+
+        HttpClient client = HttpClient.newHttpClient();
+        System.out.println("connections  matched  setup p50/max ms  queued  503s  click p50/p90/p99/max ms  answered  frames/s  host cpu");
+        for (String step : steps) {
+            runStep(client, URI.create(url), Integer.parseInt(step.trim()), clicks, legal);
+        }
+    }
+
+    private static void runStep(HttpClient client, URI uri, int connections, int clicks, boolean legal)
+            throws InterruptedException {
+        Stats stats = new Stats();
+
+        CpuSampler cpu = new CpuSampler();
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            Player player = new Player(client, uri, clicks, legal, stats, i);
+            new Thread(() -> {
+                try {
+                    player.play();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i).start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double cpuLoad = cpu.stop();
+
+        List<Long> l = sorted(stats.latency);
+        List<Long> s = sorted(stats.setup);
+        System.out.println(String.format("%11d  %7d  %7d/%-7d  %6d  %4d  %5d/%d/%d/%d  %d/%d  %8.0f  %7.0f%%",
+                connections, s.size(), percentile(s, 50), percentile(s, 100), stats.queued.get(), stats.refused.get(),
+                percentile(l, 50), percentile(l, 90), percentile(l, 99), percentile(l, 100),
+                l.size(), l.size() + stats.unanswered.get(), stats.frames.get() / seconds, cpuLoad * 100));
+    }
+
+    private static List<Long> sorted(List<Long> values) {
+        List<Long> copy;
+        synchronized (values) {
+            copy = new ArrayList<>(values);
+        }
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        if (sorted.isEmpty()) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    /**
+     * what the connections of a step measured
+     */
+    private static class Stats {
+        final List<Long> setup = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> latency = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong frames = new AtomicLong();
+        final AtomicLong unanswered = new AtomicLong();
+        // connections told their place in the admission queue
+        final AtomicLong queued = new AtomicLong();
+        // 503 answers, the queue was full
+        final AtomicLong refused = new AtomicLong();
+    }
+
+    /**
+     * one simulated browser
+     */
+    private static class Player implements WebSocket.Listener {
+        private final HttpClient client;
+        private final URI uri;
+        private final int clicks;
+        private final boolean legal;
+        private final Stats stats;
+        private final Random random;
+
+        private final StringBuilder text = new StringBuilder();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private volatile CompletableFuture<Void> answer = null;
+        private volatile long clickSent = 0;
+        private volatile boolean queued = false;
+        // what the page would show: highlighted tiles, our units and our hand slots
+        private final Map<String, int[]> highlighted = new HashMap<>();
+        private final Map<Integer, int[]> units = new HashMap<>();
+        private final Set<Integer> hand = new HashSet<>();
+
+        Player(HttpClient client, URI uri, int clicks, boolean legal, Stats stats, long seed) {
+            this.client = client;
+            this.uri = uri;
+            this.clicks = clicks;
+            this.legal = legal;
+            this.stats = stats;
+            this.random = new Random(seed);
+        }
+
+        void play() throws Exception {
+            long start = System.nanoTime();
+            WebSocket socket = connect();
+            if (socket == null) return;
+            // a queued connection waits for a match while the others play
+            try {
+                ready.get(30, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (!queued) throw e;
+                ready.get(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            stats.setup.add((System.nanoTime() - start) / 1_000_000);
+
+            send(socket, message("initalize"));
+            Thread.sleep(1000);
+
+            long lastHeartbeat = System.currentTimeMillis();
+            for (int i = 0; i < clicks; i++) {
+                click(socket, nextClick());
+                if (System.currentTimeMillis() - lastHeartbeat > 1000) {
+                    send(socket, message("heartbeat"));
+                    lastHeartbeat = System.currentTimeMillis();
+                }
+                Thread.sleep(thinkMillis);
+            }
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(10, TimeUnit.SECONDS);
+        }
+
+        /**
+         * open the websocket, waiting as told by Retry-After while the server is full
+         * @return the socket, null if the server stayed full
+         */
+        private WebSocket connect() throws Exception {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    return client.newWebSocketBuilder().buildAsync(uri, this).get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof WebSocketHandshakeException)) throw e;
+                    HttpResponse<?> response = ((WebSocketHandshakeException) e.getCause()).getResponse();
+                    if (response.statusCode() != 503) throw e;
+                    stats.refused.incrementAndGet();
+                    if (attempt >= maxRetries) return null;
+                    Thread.sleep(response.headers().firstValueAsLong("Retry-After").orElse(5) * 1000);
+                }
+            }
+        }
+
+        /**
+         * the next click: a tile the server highlighted, else one of our units or a card
+         * to get highlights, else a random tile, card or end of turn
+         */
+        private ObjectNode nextClick() {
+            if (legal && random.nextInt(10) > 0) {
+                int[] target = pick(highlighted);
+                if (target != null) return tile(target[0], target[1]);
+                if (!hand.isEmpty() && (units.isEmpty() || random.nextBoolean())) {
+                    ObjectNode select = message("cardclicked");
+                    select.put("position", pick(hand));
+                    return select;
+                }
+                int[] unit = pick(units.values());
+                if (unit != null) return tile(unit[0], unit[1]);
+            }
+
+            int choice = random.nextInt(20);
+            if (choice == 0) {
+                return message("endturnclicked");
+            } else if (choice < 6) {
+                ObjectNode select = message("cardclicked");
+                select.put("position", 1 + random.nextInt(6));
+                return select;
+            } else {
+                return tile(random.nextInt(9), random.nextInt(5));
+            }
+        }
+
+        private <T> T pick(Collection<T> values) {
+            List<T> copy;
+            synchronized (this) {
+                copy = new ArrayList<>(values);
+            }
+            return copy.isEmpty() ? null : copy.get(random.nextInt(copy.size()));
+        }
+
+        private void click(WebSocket socket, ObjectNode click) throws Exception {
+            CompletableFuture<Void> pending = new CompletableFuture<>();
+            answer = pending;
+            clickSent = System.nanoTime();
+            send(socket, click);
+            try {
+                pending.get(answerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                stats.unanswered.incrementAndGet();
+            }
+            answer = null;
+        }
+
+        private static void send(WebSocket socket, ObjectNode message) throws Exception {
+            socket.sendText(message.toString(), true).get(10, TimeUnit.SECONDS);
+        }
+
+        private static ObjectNode message(String type) {
+            ObjectNode message = mapper.createObjectNode();
+            message.put("messagetype", type);
+            return message;
+        }
+
+        private static ObjectNode tile(int tilex, int tiley) {
+            ObjectNode click = message("tileclicked");
+            click.put("tilex", tilex);
+            click.put("tiley", tiley);
+            return click;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                received(text.toString());
+                text.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        private void received(String data) {
+            stats.frames.incrementAndGet();
+            CompletableFuture<Void> pending = answer;
+            if (pending != null && !pending.isDone()) {
+                stats.latency.add((System.nanoTime() - clickSent) / 1_000_000);
+                pending.complete(null);
+            }
+            try {
+                track(mapper.readTree(data));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        private synchronized void track(JsonNode message) {
+            String type = message.path("messagetype").asText();
+            JsonNode tile = message.path("tile");
+            int[] xy = {tile.path("tilex").asInt(), tile.path("tiley").asInt()};
+            int unit = message.path("unit").path("id").asInt(-1);
+            switch (type) {
+                case "actorReady":
+                    ready.complete(null);
+                    break;
+                case "queuePosition":
+                    if (!queued) stats.queued.incrementAndGet();
+                    queued = true;
+                    break;
+                case "batch":
+                case "resync":
+                    for (JsonNode command : message.path("commands")) track(command);
+                    break;
+                case "drawTile":
+                    if (message.path("mode").asInt() == 0) highlighted.remove(xy[0] + "," + xy[1]);
+                    else highlighted.put(xy[0] + "," + xy[1], xy);
+                    break;
+                case "drawUnit":
+                case "moveUnitToTile":
+                    if (ours(unit)) units.put(unit, xy);
+                    break;
+                case "deleteUnit":
+                    units.remove(unit);
+                    break;
+                case "drawCard":
+                    hand.add(message.path("position").asInt());
+                    break;
+                case "deleteCard":
+                    hand.remove(message.path("position").asInt());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // the human player's units: its deck (card ids 0 ~ 9) and its avatar (ToolBox.humanAvatarId)
+        private static boolean ours(int unitId) {
+            return (unitId >= 0 && unitId < 10) || unitId == 99;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            ready.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * average CPU load of the host while a step runs
+     */
+    private static class CpuSampler {
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        private double total = 0;
+        private int samples = 0;
+
+        CpuSampler() {
+            com.sun.management.OperatingSystemMXBean os =
+                    (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            timer.scheduleAtFixedRate(() -> {
+                double load = os.getSystemCpuLoad();
+                if (load >= 0) {
+                    synchronized (this) {
+                        total += load;
+                        samples++;
+                    }
+                }
+            }, 500, 500, TimeUnit.MILLISECONDS);
+        }
+
+        double stop() {
+            timer.shutdownNow();
+            synchronized (this) {
+                return samples == 0 ? 0 : total / samples;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.DummyTell;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import utils.ToolBox;
+
+/**
+ * Helpers to set up a match for the benchmarks
+ */
+public class Matches {
+
+    public static final BenchTell tell = new BenchTell();
+
+    /**
+     * start a new match without a browser and without the pacing waits
+     * @param width: board width
+     * @param height: board height
+     * @param drawCards: false - nobody draws the first 3 cards(test mode)
+     */
+    public static void start(int width, int height, boolean drawCards){
+        start(width,height,drawCards,tell);
+    }
+
+    /**
+     * start a new match, sending the commands to the given tell
+     */
+    public static void start(int width, int height, boolean drawCards, DummyTell commands){
+        BasicCommands.altTell = commands;
+        ToolBox.pacing = false;
+
+        GameState.getInstance().clear();
+        ObjectNode message = Json.newObject();
+        if (!drawCards){
+            message.put("mode","test");
+        }
+        message.put("width",width);
+        message.put("height",height);
+        new Initalize().processEvent(null,GameState.getInstance(),message);
+    }
+
+    /**
+     * start a new match with a board size like "9x5"
+     */
+    public static void start(String board, boolean drawCards){
+        String[] size = board.split("x");
+        start(Integer.parseInt(size[0]),Integer.parseInt(size[1]),drawCards);
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import structures.GameState;
+import structures.basic.Card;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a Unit broadcast after a long match, in which a unit is summoned and
+ * killed on every turn. The cost should not grow with the number of turns played.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoakBenchmark {
+
+    @Param({"0","100","200"})
+    public int turns;
+
+    private Map<String,Object> unitBeReady;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(9,5,false);
+
+        //Pureblade Enforcer, it has no summon or death callback
+        Card card = BasicObjectBuilders.loadCard(StaticConfFiles.c_pureblade_enforcer,2,Card.class);
+        for (int i = 0; i < turns; i++) {
+            Unit unit = card.cardToUnit();
+
+            Map<String,Object> parameters = new HashMap<>();
+            parameters.put("type","summon");
+            parameters.put("tilex",4);
+            parameters.put("tiley",2);
+            parameters.put("unit",unit);
+            GameState.getInstance().broadcastEvent(Tile.class,parameters);
+
+            unit.changeHealth(0,false);
+        }
+
+        unitBeReady = new HashMap<>();
+        unitBeReady.put("type","unitBeReady");
+    }
+
+    @Benchmark
+    public int unitBroadcast(){
+        GameState.getInstance().broadcastEvent(Unit.class,unitBeReady);
+        return GameState.getInstance().getObservers().size();
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import commands.BasicCommands;
+import commands.SpectatorHub;
+import org.openjdk.jmh.annotations.*;
+import structures.GameState;
+import structures.basic.Unit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one command for the player against the number of spectators watching.
+ * The command is encoded once whatever the number of spectators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpectatorBenchmark {
+
+    @Param({"0", "100", "1000", "5000"})
+    public int spectators;
+
+    private ActorSystem system;
+    private ActorRef player;
+    private Unit unit;
+    private int health = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(9,5,false);
+        unit = GameState.getInstance().getBoard().getTile(1,2).getUnitOnTile();
+
+        system = ActorSystem.create("spectators");
+        Materializer materializer = Materializer.matFromSystem(system);
+        //the commands go to BenchTell, the player's websocket only names the match
+        player = system.deadLetters();
+        SpectatorHub hub = SpectatorHub.open(player);
+        for (int i = 0; i < spectators; i++) {
+            hub.subscribe().runWith(Sink.ignore(), materializer);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        SpectatorHub.close(player);
+        system.terminate();
+    }
+
+    @Benchmark
+    public void publish(){
+        health = (health + 1) % 20;
+        BasicCommands.setUnitHealth(player,unit,health);
+        BasicCommands.flush();
+    }
+}
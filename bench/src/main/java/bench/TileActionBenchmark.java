@@ -0,0 +1,90 @@
+package bench;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import events.CardClicked;
+import events.OtherClicked;
+import events.TileClicked;
+import org.openjdk.jmh.annotations.*;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Card;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per player action (Tile.trigger highlight, summon range and move flows) against the board size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileActionBenchmark {
+
+    @Param({"9x5","16x16","32x32"})
+    public String board;
+
+    private int avatarY;
+    private Unit avatar;
+    private ObjectNode clickAvatar;
+    private ObjectNode clickNextToAvatar;
+    private ObjectNode clickCard;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Matches.start(board,false);
+
+        avatarY = GameState.getInstance().getBoard().getHeight() / 2;
+        avatar = GameState.getInstance().getBoard().getTile(1,avatarY).getUnitOnTile();
+
+        clickAvatar = Json.newObject();
+        clickAvatar.put("tilex",1);
+        clickAvatar.put("tiley",avatarY);
+
+        clickNextToAvatar = Json.newObject();
+        clickNextToAvatar.put("tilex",2);
+        clickNextToAvatar.put("tiley",avatarY);
+
+        //Pureblade Enforcer on the first slot of hand
+        Card card = BasicObjectBuilders.loadCard(StaticConfFiles.c_pureblade_enforcer,2,Card.class);
+        GameState.getInstance().getCurrentPlayer().getCardsOnHand()[0] = card;
+        clickCard = Json.newObject();
+        clickCard.put("position",1);
+    }
+
+    @Setup(Level.Invocation)
+    public void ready(){
+        GameState.getInstance().setCurrentState(GameState.CurrentState.READY);
+        GameState.getInstance().getCurrentPlayer().setMana(6);
+        avatar.setCurrentState(Unit.UnitState.READY);
+        avatar.setMoveNum(1);
+    }
+
+    @Benchmark
+    public void selectUnit(){
+        new TileClicked().processEvent(null,GameState.getInstance(),clickAvatar);
+        new OtherClicked().processEvent(null,GameState.getInstance(),Json.newObject());
+    }
+
+    @Benchmark
+    public void selectCard(){
+        new CardClicked().processEvent(null,GameState.getInstance(),clickCard);
+        new OtherClicked().processEvent(null,GameState.getInstance(),Json.newObject());
+    }
+
+    @Benchmark
+    public void moveUnit(){
+        new TileClicked().processEvent(null,GameState.getInstance(),clickAvatar);
+        new TileClicked().processEvent(null,GameState.getInstance(),clickNextToAvatar);
+
+        //and back again
+        avatar.setCurrentState(Unit.UnitState.READY);
+        avatar.setMoveNum(1);
+        new TileClicked().processEvent(null,GameState.getInstance(),clickNextToAvatar);
+        new TileClicked().processEvent(null,GameState.getInstance(),clickAvatar);
+    }
+}
@@ -0,0 +1,84 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import events.Initalize;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.ActionQueue;
+import structures.GameState;
+
+public class ActionQueueTest {
+
+    private GameState gameState = GameState.getInstance();
+    private ActionQueue actions;
+
+    @Before
+    public void setUp(){
+        BasicCommands.altTell = new SimuTell();
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+        actions = gameState.getActions();
+    }
+
+    private static ObjectNode tileClicked(int tilex, int tiley){
+        ObjectNode message = Json.newObject();
+        message.put("messagetype","tileclicked");
+        message.put("tilex",tilex);
+        message.put("tiley",tiley);
+        return message;
+    }
+
+    @Test
+    public void clicksBeyondTheBoundAreDropped(){
+        for (int i = 0; i < ActionQueue.maxPending; i++) {
+            ObjectNode click = tileClicked(i,0);
+            Assert.assertSame(click,actions.offer(click));
+        }
+        //the first drop is reported to the actor, in place of the click
+        JsonNode notice = actions.offer(tileClicked(4,4));
+        Assert.assertEquals(ActionQueue.droppedType,notice.get("messagetype").asText());
+        Assert.assertNull(actions.offer(tileClicked(4,3)));
+        Assert.assertEquals(ActionQueue.maxPending,actions.getPending());
+
+        //a heartbeat is not a click
+        ObjectNode heartbeat = Json.newObject();
+        heartbeat.put("messagetype","heartbeat");
+        Assert.assertSame(heartbeat,actions.offer(heartbeat));
+    }
+
+    @Test
+    public void aRepeatedClickIsMerged(){
+        Assert.assertNotNull(actions.offer(tileClicked(2,2)));
+        Assert.assertNull(actions.offer(tileClicked(2,2)));
+
+        //once it has started, the same click can be made again
+        Assert.assertNull(actions.begin(tileClicked(2,2)));
+        Assert.assertNotNull(actions.offer(tileClicked(2,2)));
+    }
+
+    @Test
+    public void aClickIsMergedWithAnyWaitingClick(){
+        Assert.assertNotNull(actions.offer(tileClicked(1,1)));
+        Assert.assertNotNull(actions.offer(tileClicked(2,2)));
+        Assert.assertNull(actions.offer(tileClicked(1,1)));
+        Assert.assertEquals(2,actions.getPending());
+    }
+
+    @Test
+    public void clicksAreCheckedAgainstTheState(){
+        Assert.assertNotNull(actions.begin(tileClicked(-1,2)));
+
+        ObjectNode cardClicked = Json.newObject();
+        cardClicked.put("messagetype","cardclicked");
+        cardClicked.put("position",7);
+        Assert.assertNotNull(actions.begin(cardClicked));
+        Assert.assertEquals(2,actions.getDropped());
+    }
+}
@@ -0,0 +1,111 @@
+import actors.Admission;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import utils.MatchFootprint;
+
+public class AdmissionTest {
+
+    private int maxMatches;
+    private int maxWaiting;
+    private int dispatcherThreads;
+    private double heapBudget;
+
+    @Before
+    public void setUp(){
+        maxMatches = Admission.maxMatches;
+        maxWaiting = Admission.maxWaiting;
+        dispatcherThreads = Admission.dispatcherThreads;
+        heapBudget = MatchFootprint.heapBudget;
+        MatchFootprint.heapBudget = 1.0;
+        Admission.maxMatches = 1;
+        Admission.maxWaiting = 2;
+        Admission.dispatcherThreads = 4;
+        Admission.reset();
+    }
+
+    @After
+    public void tearDown(){
+        Admission.maxMatches = maxMatches;
+        Admission.maxWaiting = maxWaiting;
+        Admission.dispatcherThreads = dispatcherThreads;
+        MatchFootprint.heapBudget = heapBudget;
+        Admission.reset();
+    }
+
+    @Test
+    public void connectionsWaitThenAreRefused(){
+        Admission.Ticket first = Admission.enter();
+        Admission.Ticket second = Admission.enter();
+        Admission.Ticket third = Admission.enter();
+        Assert.assertTrue(first.isAdmitted());
+        Assert.assertFalse(second.isAdmitted());
+        Assert.assertEquals(1, second.getPosition());
+        Assert.assertEquals(2, third.getPosition());
+
+        //the queue is full
+        Assert.assertNull(Admission.enter());
+        Assert.assertNull(Admission.tryEnter());
+        Assert.assertEquals(1, Admission.toJson().get("active").asInt());
+        Assert.assertEquals(2, Admission.toJson().get("waiting").asInt());
+    }
+
+    @Test
+    public void releaseLetsTheNextOneIn(){
+        Admission.Ticket first = Admission.enter();
+        Admission.Ticket second = Admission.enter();
+        Admission.Ticket third = Admission.enter();
+
+        Admission.release(first);
+        Assert.assertTrue(second.isAdmitted());
+        Assert.assertEquals(1, third.getPosition());
+
+        //a second release of the same ticket changes nothing
+        Admission.release(first);
+        Assert.assertFalse(third.isAdmitted());
+        Assert.assertEquals(1, Admission.toJson().get("active").asInt());
+    }
+
+    @Test
+    public void aWaitingConnectionLeavingMovesTheOthersUp(){
+        Admission.enter();
+        Admission.Ticket second = Admission.enter();
+        Admission.Ticket third = Admission.enter();
+
+        Admission.release(second);
+        Assert.assertFalse(third.isAdmitted());
+        Assert.assertEquals(1, third.getPosition());
+        Assert.assertEquals(1, Admission.toJson().get("waiting").asInt());
+    }
+
+    @Test
+    public void busyDispatcherHoldsTheQueue(){
+        Admission.maxMatches = 2;
+        Admission.dispatcherThreads = 1;
+        Admission.enter();
+
+        Admission.actionStarted();
+        Admission.Ticket second = Admission.enter();
+        Assert.assertFalse(second.isAdmitted());
+
+        //the action is over, the waiting connection is promoted
+        Admission.actionEnded();
+        Assert.assertTrue(second.isAdmitted());
+        Assert.assertEquals(0, second.getPosition());
+    }
+
+    @Test
+    public void aFullHeapBudgetHoldsTheQueue(){
+        //no room in the heap for one more match
+        MatchFootprint.heapBudget = 0;
+        Admission.Ticket first = Admission.enter();
+        Assert.assertFalse(first.isAdmitted());
+        Assert.assertNull(Admission.tryEnter());
+
+        //room again, the gate's recheck lets it in
+        MatchFootprint.heapBudget = 1.0;
+        Admission.promote();
+        Assert.assertTrue(first.isAdmitted());
+    }
+}
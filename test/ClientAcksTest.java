@@ -0,0 +1,63 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Test;
+import play.libs.Json;
+import structures.ClientAcks;
+
+public class ClientAcksTest {
+
+    @Test
+    public void ackEndsTheWaitEarly(){
+        ClientAcks acks = new ClientAcks();
+        int ackId = acks.expect(7, ClientAcks.MOVE);
+
+        //the front-end reports the unit stopped shortly after
+        new Thread(() -> {
+            try { Thread.sleep(50); } catch (InterruptedException e) { e.printStackTrace(); }
+            ObjectNode message = Json.newObject();
+            message.put("messagetype","unitstopped");
+            message.put("id",7);
+            message.put("ackId",ackId);
+            acks.onClientEvent(message);
+        }).start();
+
+        long start = System.currentTimeMillis();
+        acks.await(ackId, 5000);
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    @Test
+    public void noAckFallsBackToTheExpectedTime(){
+        ClientAcks acks = new ClientAcks();
+        int ackId = acks.expect(7, ClientAcks.ANIMATION);
+
+        long start = System.currentTimeMillis();
+        acks.await(ackId, 100);
+        long waited = System.currentTimeMillis() - start;
+        Assert.assertTrue(waited >= 100 && waited < 2000);
+    }
+
+    @Test
+    public void staleAckDoesNotEndANewerWait(){
+        ClientAcks acks = new ClientAcks();
+        int moveAck = acks.expect(7, ClientAcks.MOVE);
+        acks.await(moveAck, 0);
+        int attackAck = acks.expect(7, ClientAcks.ANIMATION);
+
+        //the unitstopped of the move arrives late, during the attack
+        new Thread(() -> {
+            try { Thread.sleep(50); } catch (InterruptedException e) { e.printStackTrace(); }
+            ObjectNode message = Json.newObject();
+            message.put("messagetype","unitstopped");
+            message.put("id",7);
+            message.put("ackId",moveAck);
+            acks.onClientEvent(message);
+            message.remove("ackId");
+            acks.onClientEvent(message);
+        }).start();
+
+        long start = System.currentTimeMillis();
+        acks.await(attackAck, 300);
+        Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+}
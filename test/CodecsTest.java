@@ -0,0 +1,43 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import events.Initalize;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.Codecs;
+
+public class CodecsTest {
+
+    private GameState gameState = GameState.getInstance();
+
+    @Before
+    public void setUp(){
+        BasicCommands.altTell = new SimuTell();
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+    }
+
+    @Test
+    public void treeIsTheSameAsTheJsonText() throws Exception{
+        //the commands used to write the objects to a String and parse it again, the wire text must not change
+        ObjectMapper mapper = new ObjectMapper();
+        Tile tile = gameState.getBoard().getTile(1,2);
+        Unit unit = tile.getUnitOnTile();
+        Player player = gameState.getPlayerContainers()[1];
+
+        Assert.assertEquals(mapper.readTree(mapper.writeValueAsString(tile)).toString(),Codecs.toTree(tile).toString());
+        Assert.assertEquals(mapper.readTree(mapper.writeValueAsString(unit)).toString(),Codecs.toTree(unit).toString());
+        Assert.assertEquals(mapper.readTree(mapper.writeValueAsString(player)).toString(),Codecs.toTree(player).toString());
+    }
+}
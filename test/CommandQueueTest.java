@@ -0,0 +1,65 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.CommandQueue;
+import events.Initalize;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+public class CommandQueueTest {
+
+    private GameState gameState = GameState.getInstance();
+    private SimuTell tell;
+
+
+    @Before
+    public void setUp(){
+        tell = new SimuTell();
+        BasicCommands.altTell = tell;
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+        tell.reset();
+    }
+
+
+    @Test
+    public void onlyTheLastStateOfATileIsSent(){
+        Tile tile = gameState.getBoard().getTile(4,2);
+        BasicCommands.drawTile(null,tile,1);
+        BasicCommands.drawTile(null,tile,2);
+        BasicCommands.drawTile(null,tile,0);
+
+        Assert.assertEquals(1,tell.count("drawTile"));
+    }
+
+    @Test
+    public void animationsKeepTheirOrder(){
+        Unit avatar = gameState.getBoard().getTile(1,2).getUnitOnTile();
+        BasicCommands.setUnitHealth(null,avatar,19);
+        BasicCommands.deleteUnit(null,avatar);
+        BasicCommands.setUnitHealth(null,avatar,18);
+
+        //the health set before the delete is not merged with the one after it
+        Assert.assertEquals(2,tell.count("setUnitHealth"));
+        Assert.assertEquals(1,tell.count("deleteUnit"));
+    }
+
+    @Test
+    public void aHeldCommandIsSentWhenTheWindowIsOver() throws InterruptedException {
+        Tile tile = gameState.getBoard().getTile(4,2);
+        BasicCommands.drawTile(null,tile,1);
+
+        //nothing flushes the queue, the timer of the window does
+        Thread.sleep(CommandQueue.windowMillis * 10);
+        Assert.assertEquals(1,(int) tell.counts.getOrDefault("drawTile",0));
+    }
+}
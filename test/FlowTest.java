@@ -14,6 +14,7 @@ import structures.basic.Card;
 import structures.basic.Tile;
 import structures.basic.Unit;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class FlowTest {
@@ -137,6 +138,36 @@ public class FlowTest {
     }
 
 
+    @Test
+    public void thePlayedCardLeavesItsOwnSlot(){
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+
+        //the same card in slots 1 and 3: a search of the hand finds slot 1
+        Card[] hand = gameState.getCurrentPlayer().getCardsOnHand();
+        Arrays.fill(hand,null);
+        drawCardCheat(2);
+        hand[2] = hand[0];
+        gameState.getCurrentPlayer().setMana(2);
+
+        eventMessage = Json.newObject();
+        eventMessage.put("position",3);
+        new CardClicked().processEvent(null,gameState,eventMessage);
+
+        eventMessage = Json.newObject();
+        eventMessage.put("tilex",1);
+        eventMessage.put("tiley",1);
+        new TileClicked().processEvent(null,gameState,eventMessage);
+
+        //the slot selected is the one cleared
+        Assert.assertNull(hand[2]);
+        Assert.assertNotNull(hand[0]);
+    }
+
+
     /**
      *
      * draw a card with id(only for test)
@@ -0,0 +1,68 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import utils.GameDataBundle;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class GameDataBundleTest {
+
+    private String bundleFile;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception{
+        bundleFile = GameDataBundle.bundleFile;
+        directory = Files.createTempDirectory("gameconfs");
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        GameDataBundle.bundleFile = bundleFile;
+        GameDataBundle.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private void write(Path file, String json) throws Exception{
+        Files.createDirectories(file.getParent());
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void packedConfigsAreReadBackByTheirConfPath() throws Exception{
+        Path source = directory.resolve("configs");
+        write(source.resolve("cards/1_1_c_u_test.json"), "{\"id\":1,\"cardname\":\"Test\",\"manacost\":2}");
+        //not ASCII: the header must measure the path as writeUTF writes it
+        write(source.resolve("effects/\u00fcber.json"), "{\"name\":\"\u00fcber\"}");
+        write(source.resolve("tile.json"), "{\"tilex\":0,\"tiley\":0,\"tileTextures\":[\"a.png\",\"b.png\"]}");
+        Path target = directory.resolve("gameconfs.bundle");
+
+        //named as StaticConfFiles names them, whatever directory they were packed from
+        List<String> paths = GameDataBundle.pack(source, target);
+        Assert.assertEquals(Arrays.asList("conf/gameconfs/cards/1_1_c_u_test.json",
+                "conf/gameconfs/effects/\u00fcber.json", "conf/gameconfs/tile.json"), paths);
+
+        GameDataBundle.bundleFile = target.toString();
+        GameDataBundle.close();
+        JsonNode card = GameDataBundle.read("conf/gameconfs/cards/1_1_c_u_test.json", JsonNode.class);
+        Assert.assertEquals(Json.parse("{\"id\":1,\"cardname\":\"Test\",\"manacost\":2}").toString(), card.toString());
+        JsonNode tile = GameDataBundle.read("conf/gameconfs/tile.json", JsonNode.class);
+        Assert.assertEquals("b.png", tile.get("tileTextures").get(1).asText());
+        JsonNode effect = GameDataBundle.read("conf/gameconfs/effects/\u00fcber.json", JsonNode.class);
+        Assert.assertEquals("\u00fcber", effect.get("name").asText());
+
+        //a config which is not packed is read from its file
+        Assert.assertNull(GameDataBundle.read("conf/gameconfs/grid.json", JsonNode.class));
+    }
+}
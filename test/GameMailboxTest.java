@@ -0,0 +1,74 @@
+import actors.GameMailbox;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+
+public class GameMailboxTest {
+
+    private ActorSystem system;
+    private GameMailbox.GameMessageQueue queue;
+
+    @Before
+    public void setUp(){
+        system = ActorSystem.create("GameMailboxTest");
+        queue = new GameMailbox.GameMessageQueue();
+    }
+
+    @After
+    public void tearDown(){
+        system.terminate();
+    }
+
+    private void enqueue(ObjectNode message){
+        queue.enqueue(system.deadLetters(), Envelope.apply(message, system.deadLetters(), system));
+    }
+
+    private static ObjectNode message(String messageType, int id){
+        ObjectNode message = Json.newObject();
+        message.put("messagetype",messageType);
+        message.put("id",id);
+        return message;
+    }
+
+    private String next(){
+        Envelope envelope = queue.dequeue();
+        if (envelope == null) return null;
+        JsonNode message = (JsonNode) envelope.message();
+        return message.get("messagetype").asText() + message.get("id").asInt();
+    }
+
+    @Test
+    public void heartbeatsCollapseBehindTheActions(){
+        long collapsed = GameMailbox.toJson().get("collapsedHeartbeats").asLong();
+
+        enqueue(message("heartbeat",1));
+        enqueue(message("tileclicked",1));
+        enqueue(message("heartbeat",2));
+        enqueue(message("heartbeat",3));
+        enqueue(message("cardclicked",2));
+        Assert.assertEquals(3, queue.numberOfMessages());
+
+        //the actions in order, then only the latest heartbeat
+        Assert.assertEquals("tileclicked1", next());
+        Assert.assertEquals("cardclicked2", next());
+        Assert.assertEquals("heartbeat3", next());
+        Assert.assertNull(next());
+        Assert.assertFalse(queue.hasMessages());
+        Assert.assertEquals(collapsed + 2, GameMailbox.toJson().get("collapsedHeartbeats").asLong());
+    }
+
+    @Test
+    public void aHeartbeatAfterTheQueuedOneIsTakenIsKept(){
+        enqueue(message("heartbeat",1));
+        Assert.assertEquals("heartbeat1", next());
+        enqueue(message("heartbeat",2));
+        Assert.assertEquals("heartbeat2", next());
+        Assert.assertNull(next());
+    }
+}
@@ -0,0 +1,117 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import events.CardClicked;
+import events.Initalize;
+import events.OtherClicked;
+import events.TileClicked;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Card;
+import utils.HighlightMap;
+
+public class HighlightTest {
+
+    private GameState gameState = GameState.getInstance();
+    private SimuTell tell;
+
+
+    @Before
+    public void setUp(){
+        tell = new SimuTell();
+        BasicCommands.altTell = tell;
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+    }
+
+
+    @Test
+    public void resetOnlyRedrawsHighlightedTiles(){
+        //select the human avatar
+        tell.reset();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("tilex",1);
+        eventMessage.put("tiley",2);
+        new TileClicked().processEvent(null,gameState,eventMessage);
+
+        int highlighted = gameState.getHighlightedTiles().size();
+        Assert.assertTrue(highlighted > 0);
+        //each highlighted tile is drawn once
+        Assert.assertEquals(highlighted,tell.count("drawTile"));
+
+        //cancel the selection
+        tell.reset();
+        new OtherClicked().processEvent(null,gameState,Json.newObject());
+
+        //only the highlighted tiles are redrawn, not the whole board
+        Assert.assertEquals(highlighted,tell.count("drawTile"));
+        Assert.assertTrue(gameState.getHighlightedTiles().isEmpty());
+    }
+
+
+    @Test
+    public void highlightMapIsOnlySentAfterAStateChange(){
+        HighlightMap.reset();
+        HighlightMap.pushIfChanged();
+        Assert.assertEquals(1,tell.count("highlightMap"));
+
+        //selecting the avatar changes nothing, no map is built
+        tell.reset();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("tilex",1);
+        eventMessage.put("tiley",2);
+        new TileClicked().processEvent(null,gameState,eventMessage);
+        HighlightMap.pushIfChanged();
+        Assert.assertEquals(0,tell.count("highlightMap"));
+
+        //no mana left, the cards can no longer be played
+        gameState.getCurrentPlayer().setMana(0);
+        HighlightMap.pushIfChanged();
+        HighlightMap.pushIfChanged();
+        Assert.assertTrue(tell.count("highlightMap") <= 1);
+    }
+
+
+    @Test
+    public void reselectingSameCardRedrawsNoTile(){
+        //Pureblade Enforcer, id: 2
+        putCardOnHand(2);
+        gameState.getCurrentPlayer().setMana(2);
+
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("position",1);
+        new CardClicked().processEvent(null,gameState,eventMessage);
+        int highlighted = gameState.getHighlightedTiles().size();
+        Assert.assertTrue(highlighted > 0);
+
+        //the new highlight is the same as the old one
+        tell.reset();
+        new CardClicked().processEvent(null,gameState,eventMessage);
+
+        Assert.assertEquals(highlighted,gameState.getHighlightedTiles().size());
+        Assert.assertEquals(0,tell.count("drawTile"));
+    }
+
+
+    /**
+     *
+     * put a card of the deck on the first slot of hand(only for test)
+     *
+     * @param id:  card id
+     */
+    private void putCardOnHand(int id){
+        for (Card card : gameState.getCurrentPlayer().getDeck()) {
+            if (card.getId() == id){
+                gameState.getCurrentPlayer().getCardsOnHand()[0] = card;
+                return;
+            }
+        }
+    }
+}
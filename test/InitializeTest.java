@@ -8,6 +8,8 @@ import org.junit.Test;
 import play.libs.Json;
 import structures.GameState;
 import structures.Observer;
+import structures.basic.Card;
+import structures.basic.Player;
 import structures.basic.Unit;
 
 
@@ -75,6 +77,41 @@ public class InitializeTest {
 
     }
 
+    @Test
+    public void theSameSeedDealsTheSameCards(){
+        Assert.assertEquals(dealtWithSeed(42),dealtWithSeed(42));
+    }
+
+    private String dealtWithSeed(long seed){
+        gameState.clear();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("seed",seed);
+        new Initalize().processEvent(null,gameState,eventMessage);
+
+        StringBuilder dealt = new StringBuilder();
+        for (Player player : gameState.getPlayerContainers()) {
+            for (Card card : player.getCardsOnHand()) dealt.append(card == null ? "-" : card.getId()).append(',');
+            for (Card card : player.getDeck()) dealt.append(card.getId()).append(',');
+        }
+        return dealt.toString();
+    }
+
+    @Test
+    public void anotherBoardSizeIsBuiltWhenTheMatchStarts(){
+        gameState.clear();
+
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("width",12);
+        eventMessage.put("height",7);
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+
+        Assert.assertEquals(12,gameState.getBoard().getWidth());
+        Assert.assertEquals(7,gameState.getBoard().getHeight());
+        Assert.assertNotNull(findUnitByID(99));
+        Assert.assertNotNull(findUnitByID(100));
+    }
+
 
 
 
@@ -0,0 +1,64 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import events.Initalize;
+import events.TileClicked;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.LegalActions;
+import structures.basic.Tile;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class LegalActionsTest {
+
+    private GameState gameState = GameState.getInstance();
+
+
+    @Before
+    public void setUp(){
+        BasicCommands.altTell = new SimuTell();
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+    }
+
+
+    @Test
+    public void encodingRoundTrips(){
+        int action = LegalActions.encode(LegalActions.ATTACK, 1023, 44);
+        Assert.assertEquals(LegalActions.ATTACK, LegalActions.type(action));
+        Assert.assertEquals(1023, LegalActions.source(action));
+        Assert.assertEquals(44, LegalActions.target(action));
+    }
+
+    @Test
+    public void avatarMovesAreTheHighlightedTiles(){
+        Board board = gameState.getBoard();
+        int source = board.indexOf(1,2);
+
+        //two steps in the 4 directions on an empty board
+        Set<Tile> moves = new HashSet<>();
+        for (int action : LegalActions.generate()) {
+            if (LegalActions.type(action) == LegalActions.MOVE && LegalActions.source(action) == source) {
+                moves.add(board.getTiles()[LegalActions.target(action)]);
+            }
+        }
+        Assert.assertEquals(11, moves.size());
+
+        //selecting the avatar highlights the same tiles
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("tilex",1);
+        eventMessage.put("tiley",2);
+        new TileClicked().processEvent(null,gameState,eventMessage);
+        Assert.assertEquals(moves, gameState.getHighlightedTiles());
+    }
+}
@@ -0,0 +1,61 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import events.Initalize;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Unit;
+import utils.MatchPassivation;
+
+import java.io.File;
+
+public class MatchPassivationTest {
+
+    private GameState gameState = GameState.getInstance();
+    private SimuTell tell;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception{
+        tell = new SimuTell();
+        BasicCommands.altTell = tell;
+        file = File.createTempFile("idle",".snap");
+        MatchPassivation.passivatedFile = file.getPath();
+
+        //call initialze event(test mode)
+        gameState.clear();
+        Initalize initalizeEvent = new Initalize();
+        ObjectNode eventMessage = Json.newObject();
+        eventMessage.put("mode","test");
+        initalizeEvent.processEvent(null,gameState,eventMessage);
+    }
+
+    @After
+    public void tearDown(){
+        MatchPassivation.idleMillis = 10 * 60 * 1000L;
+        file.delete();
+    }
+
+    @Test
+    public void anIdleMatchIsRestoredOnTheNextAction(){
+        Unit avatar = gameState.getBoard().getTile(1,2).getUnitOnTile();
+        int health = gameState.getPlayerContainers()[0].getHealth();
+
+        MatchPassivation.idleMillis = 0;
+        MatchPassivation.onHeartbeat();
+        Assert.assertTrue(MatchPassivation.isPassivated());
+        Assert.assertNull(gameState.getBoard());
+
+        tell.reset();
+        MatchPassivation.onAction("tileclicked",null);
+        Assert.assertFalse(MatchPassivation.isPassivated());
+        Assert.assertEquals(avatar.getId(),gameState.getBoard().getTile(1,2).getUnitOnTile().getId());
+        Assert.assertEquals(health,gameState.getPlayerContainers()[0].getHealth());
+        //the front-end still shows the board
+        BasicCommands.flush();
+        Assert.assertEquals(0,tell.count("drawTile"));
+    }
+}
@@ -1,12 +1,29 @@
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
 import commands.DummyTell;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class SimuTell implements DummyTell {
     public String result;
+    //number of commands sent, by message type
+    public Map<String,Integer> counts = new HashMap<>();
 
 
     @Override
     public void tell(ObjectNode message) {
         this.result = message.asText();
+        counts.merge(message.get("messagetype").asText(),1,Integer::sum);
+    }
+
+    public int count(String messageType){
+        BasicCommands.flush();
+        return counts.getOrDefault(messageType,0);
+    }
+
+    public void reset(){
+        BasicCommands.flush();
+        counts.clear();
     }
 }